@@ -0,0 +1,104 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Measures a whole {@code /search} round trip: the service is started in-process and calls local stub servers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchRoundTripBenchmark {
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"false", "true"})
+    public boolean encoded;
+
+    private DisposableServer itunesStub;
+    private DisposableServer googleBooksStub;
+    private ConfigurableApplicationContext context;
+    private WebClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        itunesStub = stub("/search", read("/love_and_hate_itunes_response.json"));
+        googleBooksStub = stub("/books/v1/volumes", read("/love_and_hate_google_response.json"));
+        context = new SpringApplicationBuilder(RecommendationServiceApplication.class)
+            .run(
+                "--server.port=0",
+                "--itunes_base_uri=http://localhost:" + itunesStub.port(),
+                "--google_books_base_uri=http://localhost:" + googleBooksStub.port(),
+                "--search.cache.enabled=" + cache,
+                "--search.encoded.enabled=" + encoded,
+                "--search.store.enabled=false",
+                "--search.ratelimit.enabled=false",
+                "--search.http.itunes.http2=false",
+                "--search.http.googleBooks.http2=false",
+                "--logging.level.root=WARN"
+            );
+        var port = context.getEnvironment().getProperty("local.server.port");
+        client = WebClient.builder()
+            .baseUrl("http://localhost:" + port)
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        itunesStub.disposeNow();
+        googleBooksStub.disposeNow();
+    }
+
+    @Benchmark
+    public byte[] search() {
+        return client.get()
+            .uri(uriBuilder -> uriBuilder.path("/search").queryParam("name", "love and hate").build())
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToMono(byte[].class)
+            .block();
+    }
+
+    private static DisposableServer stub(String path, byte[] body) {
+        return HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get(path, (request, response) -> response
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendByteArray(Mono.just(body))))
+            .bindNow();
+    }
+
+    private static byte[] read(String resourcePath) throws IOException {
+        try (var stream = SearchRoundTripBenchmark.class.getResourceAsStream(resourcePath)) {
+            return Objects.requireNonNull(stream).readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares streaming decoders with binding the whole upstream response to DTOs, as clients used to do.
+ * Run with {@code ./gradlew jmh}, the gc profiler reports allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodingBenchmark {
+    /**
+     * Size of chunks the response is fed by, like Netty delivers the body in several buffers.
+     */
+    @Param({"8192"})
+    public int chunkSize;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private byte[] itunesResponse;
+    private byte[] googleBooksResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        itunesResponse = read("/love_and_hate_itunes_response.json");
+        googleBooksResponse = read("/love_and_hate_google_response.json");
+    }
+
+    @Benchmark
+    public List<Item> itunesJacksonBinding() throws IOException {
+        var response = mapper.readValue(itunesResponse, ITunesResponse.class);
+        return response.getResults().stream()
+            .map(v -> new Item(v.getCollectionName(), v.getArtistName(), Item.Type.ALBUM))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Item> itunesStreamingDecoder() {
+        return decode(new ItunesResponseDecoder(Integer.MAX_VALUE), itunesResponse);
+    }
+
+    @Benchmark
+    public List<Item> googleBooksJacksonBinding() throws IOException {
+        var response = mapper.readValue(googleBooksResponse, GoogleBooksResponse.class);
+        return response.getItems().stream()
+            .map(v -> {
+                var title = v.getVolumeInfo().getTitle();
+                var authors = String.join(", ", v.getVolumeInfo().getAuthors());
+                return new Item(title, authors, Item.Type.BOOK);
+            })
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Item> googleBooksStreamingDecoder() {
+        return decode(new GoogleBooksResponseDecoder(Integer.MAX_VALUE), googleBooksResponse);
+    }
+
+    private List<Item> decode(StreamingItemDecoder decoder, byte[] response) {
+        var items = new ArrayList<Item>();
+        for (int offset = 0; offset < response.length; offset += chunkSize) {
+            items.addAll(decoder.decode(response, offset, Math.min(chunkSize, response.length - offset)));
+        }
+        decoder.complete();
+        return items;
+    }
+
+    private static byte[] read(String resourcePath) throws IOException {
+        try (var stream = DecodingBenchmark.class.getResourceAsStream(resourcePath)) {
+            return Objects.requireNonNull(stream).readAllBytes();
+        }
+    }
+
+    private static class ITunesResponse {
+        private List<Result> results;
+
+        public List<Result> getResults() {
+            return results;
+        }
+
+        private static class Result {
+            private String collectionName;
+            private String artistName;
+
+            public String getCollectionName() {
+                return collectionName;
+            }
+
+            public String getArtistName() {
+                return artistName;
+            }
+        }
+    }
+
+    private static class GoogleBooksResponse {
+        private List<Volume> items;
+
+        public List<Volume> getItems() {
+            return items == null ? List.of() : items;
+        }
+
+        private static class VolumeInfo {
+            private String title;
+            private List<String> authors;
+
+            public String getTitle() {
+                return title;
+            }
+
+            public List<String> getAuthors() {
+                return authors == null ? List.of() : authors;
+            }
+        }
+
+        private static class Volume {
+            private VolumeInfo volumeInfo;
+
+            public VolumeInfo getVolumeInfo() {
+                return volumeInfo;
+            }
+        }
+    }
+}
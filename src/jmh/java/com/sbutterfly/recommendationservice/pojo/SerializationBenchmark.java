@@ -0,0 +1,50 @@
+package com.sbutterfly.recommendationservice.pojo;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serialization of a merged search response to json, as it's written to the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"10", "100"})
+    public int items;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private SearchResponse response;
+
+    @Setup
+    public void setUp() {
+        var list = new ArrayList<Item>(items);
+        for (int i = 0; i < items; i++) {
+            var type = i % 2 == 0 ? Item.Type.ALBUM : Item.Type.BOOK;
+            list.add(new Item("Love & Hate, part " + i, "Michael Kiwanuka", type));
+        }
+        response = new SearchResponse("Google books search is unavailable", list);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,137 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbutterfly.recommendationservice.dedup.Deduplicator;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Compares merging and serializing a hot search response on every request with reusing its encoded json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodedResponseBenchmark {
+    private static final int SEQUENCE = 1 << 16;
+    private static final ResolvableType RESPONSE_TYPE = ResolvableType.forClass(SearchResponse.class);
+
+    @Param({"1", "1000"})
+    public int queries;
+
+    @Param({"10"})
+    public int itemsPerProvider;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(mapper);
+    private ResponseMerger merger;
+    private EncodedResponses encodedResponses;
+    private List<List<SearchResponse>> results;
+    private int[] sequence;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var searchMetrics = new SearchMetrics(meterRegistry);
+        merger = new ResponseMerger(List.of(new TitleRanker(), new RelevanceRanker(1.0, 0.3, 1.0, 0.5, 0.2)), "title",
+            new Deduplicator(new StandardEnvironment(), meterRegistry), searchMetrics);
+        encodedResponses = new EncodedResponses(true, true, DataSize.ofMegabytes(64), mapper, searchMetrics, meterRegistry);
+        results = new ArrayList<>(queries);
+        for (int q = 0; q < queries; q++) {
+            results.add(List.of(
+                new SearchResponse(items(q, Item.Type.ALBUM)),
+                new SearchResponse(items(q, Item.Type.BOOK))
+            ));
+        }
+        sequence = zipf(new Random(42), queries, SEQUENCE);
+    }
+
+    @Benchmark
+    public int mergeAndSerialize() {
+        int q = nextQuery();
+        var response = merger.merge(query(q), results.get(q), null, 2 * itemsPerProvider);
+        var buffer = encoder.encodeValue(response, bufferFactory, RESPONSE_TYPE, MediaType.APPLICATION_JSON, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @Benchmark
+    public int encoded() {
+        int q = nextQuery();
+        var query = query(q);
+        var responses = results.get(q);
+        var response = encodedResponses.get(query, responses, () -> merger.merge(query, responses, null, 2 * itemsPerProvider));
+        var buffer = response.toDataBuffer(bufferFactory);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (SEQUENCE - 1);
+        return sequence[next];
+    }
+
+    private static String query(int q) {
+        return "love and hate " + q;
+    }
+
+    private List<Item> items(int q, Item.Type type) {
+        var items = new ArrayList<Item>(itemsPerProvider);
+        for (int i = 0; i < itemsPerProvider; i++) {
+            items.add(new Item("Love & Hate " + q + ", part " + i, "Michael Kiwanuka", type));
+        }
+        return items;
+    }
+
+    /**
+     * Precomputed sequence of keys, where the key of rank r is requested with probability proportional to 1 / r.
+     */
+    private static int[] zipf(Random random, int keys, int length) {
+        var cumulative = new double[keys];
+        double sum = 0;
+        for (int k = 0; k < keys; k++) {
+            sum += 1.0 / (k + 1);
+            cumulative[k] = sum;
+        }
+        var sequence = new int[length];
+        for (int i = 0; i < length; i++) {
+            double u = random.nextDouble() * sum;
+            int k = Arrays.binarySearch(cumulative, u);
+            sequence[i] = k >= 0 ? k : Math.min(keys - 1, -k - 1);
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.sbutterfly.recommendationservice.dedup.Deduplicator;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Measures merging of provider responses: deduplicating and ranking items of all providers,
+ * selecting the top ones and joining error messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeBenchmark {
+    private static final String QUERY = "love and hate";
+    private static final String[] WORDS = {"love", "hate", "and", "the", "songs", "of", "war", "peace", "night", "day", "live"};
+
+    /**
+     * Number of items returned by every provider.
+     */
+    @Param({"5", "50", "500", "5000"})
+    public int itemsPerProvider;
+
+    @Param({"title", "relevance"})
+    public String sort;
+
+    /**
+     * Number of items in the merged response.
+     */
+    @Param({"10"})
+    public int limit;
+
+    private ResponseMerger merger;
+    private List<SearchResponse> responses;
+
+    @Setup
+    public void setUp() {
+        merger = new ResponseMerger(List.of(new TitleRanker(), new RelevanceRanker(1.0, 0.3, 1.0, 0.5, 0.2)), "title",
+            new Deduplicator(new StandardEnvironment(), new SimpleMeterRegistry()), new SearchMetrics(new SimpleMeterRegistry()));
+        var random = new Random(42);
+        responses = List.of(
+            new SearchResponse(items(random, Item.Type.ALBUM)),
+            new SearchResponse(items(random, Item.Type.BOOK))
+        );
+    }
+
+    @Benchmark
+    public SearchResponse merge() {
+        return merger.merge(QUERY, responses, sort, limit);
+    }
+
+    private List<Item> items(Random random, Item.Type type) {
+        var items = new ArrayList<Item>(itemsPerProvider);
+        for (int i = 0; i < itemsPerProvider; i++) {
+            var title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000);
+            items.add(new Item(title, "Author " + random.nextInt(1000), type));
+        }
+        return items;
+    }
+}
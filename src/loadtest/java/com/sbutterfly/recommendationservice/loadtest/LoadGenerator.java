@@ -0,0 +1,124 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Open-model load generator: requests are sent at a fixed arrival rate, and latency is measured
+ * from the moment a request was scheduled rather than sent.
+ */
+class LoadGenerator {
+    private final WebClient client;
+    private final ConnectionProvider connectionProvider;
+    private final List<String> queries;
+    private final int rate;
+    private final Duration requestTimeout;
+
+    LoadGenerator(String baseUri, List<String> queries, int rate, int maxConnections, Duration requestTimeout) {
+        this.connectionProvider = ConnectionProvider.builder("loadtest")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(requestTimeout)
+            .build();
+        this.client = WebClient.builder()
+            .baseUrl(baseUri)
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+            .build();
+        this.queries = queries;
+        this.rate = rate;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Sends requests for the given duration and waits for outstanding responses.
+     */
+    Result run(Duration duration) throws InterruptedException {
+        int total = (int) Math.max(1, duration.toNanos() * rate / TimeUnit.SECONDS.toNanos(1));
+        var result = new Result(total);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(scheduled, result);
+        }
+        result.sendingNanos = System.nanoTime() - start;
+        long deadline = System.nanoTime() + requestTimeout.toNanos() * 2;
+        while (result.completed.get() < total && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    void stop() {
+        connectionProvider.disposeLater().block();
+    }
+
+    private void send(long scheduled, Result result) {
+        var query = queries.get(ThreadLocalRandom.current().nextInt(queries.size()));
+        client.get()
+            .uri(uriBuilder -> uriBuilder.path("/search").queryParam("name", query).build())
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .timeout(requestTimeout)
+            .subscribe(
+                body -> {
+                    var errorMessage = body.path("errorMessage").asText("");
+                    result.record(scheduled, errorMessage.isEmpty() ? result.succeeded : result.degraded);
+                },
+                error -> result.record(scheduled, result.failed)
+            );
+    }
+
+    static class Result {
+        private final long[] latencies;
+        private final AtomicInteger completed = new AtomicInteger();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder degraded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        long sendingNanos;
+        long elapsedNanos;
+
+        Result(int total) {
+            this.latencies = new long[total];
+        }
+
+        private void record(long scheduled, LongAdder outcome) {
+            outcome.increment();
+            latencies[completed.getAndIncrement()] = System.nanoTime() - scheduled;
+        }
+
+        int scheduled() {
+            return latencies.length;
+        }
+
+        int completed() {
+            return completed.get();
+        }
+
+        /**
+         * Latencies of completed requests in ascending order.
+         */
+        long[] sortedLatencies() {
+            var sorted = Arrays.copyOf(latencies, Math.min(completed.get(), latencies.length));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
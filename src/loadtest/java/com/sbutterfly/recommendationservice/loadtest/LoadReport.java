@@ -0,0 +1,105 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Results of a load test run, checked against SLO thresholds ({@code loadtest.slo.*}).
+ */
+class LoadReport {
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final List<String> violations = new ArrayList<>();
+
+    LoadReport(int targetRate, LoadGenerator.Result result) {
+        var latencies = result.sortedLatencies();
+        double seconds = (double) result.sendingNanos / TimeUnit.SECONDS.toNanos(1);
+        values.put("targetRate", targetRate);
+        values.put("throughput", Math.round(result.completed() / seconds));
+        values.put("scheduled", result.scheduled());
+        values.put("completed", result.completed());
+        values.put("succeeded", result.succeeded.sum());
+        values.put("degraded", result.degraded.sum());
+        values.put("failed", result.failed.sum() + result.scheduled() - result.completed());
+        values.put("latencyMs", Map.of(
+            "p50", millis(percentile(latencies, 0.5)),
+            "p90", millis(percentile(latencies, 0.9)),
+            "p99", millis(percentile(latencies, 0.99)),
+            "p999", millis(percentile(latencies, 0.999)),
+            "max", millis(percentile(latencies, 1))
+        ));
+    }
+
+    void put(String name, Object value) {
+        values.put(name, value);
+    }
+
+    /**
+     * Checks latency percentiles, failure and degradation rates and throughput against thresholds.
+     * Percentile thresholds are checked only if they are configured.
+     */
+    void check(Settings slo) {
+        @SuppressWarnings("unchecked")
+        var latencies = (Map<String, Double>) values.get("latencyMs");
+        for (var percentile : List.of("p50", "p90", "p99", "p999")) {
+            var threshold = slo.getDuration(percentile, null);
+            if (threshold != null && latencies.get(percentile) > threshold.toMillis()) {
+                violations.add(String.format("%s latency %.1fms exceeds %dms", percentile, latencies.get(percentile), threshold.toMillis()));
+            }
+        }
+        long scheduled = ((Number) values.get("scheduled")).longValue();
+        checkRate("failed", ((Number) values.get("failed")).longValue(), scheduled, slo.getDouble("max-failure-rate", 0.01));
+        checkRate("degraded", ((Number) values.get("degraded")).longValue(), scheduled, slo.getDouble("max-degraded-rate", 0.05));
+
+        double minThroughput = slo.getDouble("min-throughput-ratio", 0.95) * ((Number) values.get("targetRate")).doubleValue();
+        if (((Number) values.get("throughput")).doubleValue() < minThroughput) {
+            violations.add(String.format("throughput %s rps is below %.0f rps", values.get("throughput"), minThroughput));
+        }
+        values.put("violations", violations);
+    }
+
+    boolean passed() {
+        return violations.isEmpty();
+    }
+
+    void write(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(path.toFile(), values);
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder();
+        values.forEach((name, value) -> builder.append(String.format("%-24s %s%n", name, value)));
+        return builder.toString();
+    }
+
+    private void checkRate(String name, long count, long total, double maxRate) {
+        double rate = total == 0 ? 0 : (double) count / total;
+        if (rate > maxRate) {
+            violations.add(String.format("%s rate %.4f exceeds %.4f", name, rate, maxRate));
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.sbutterfly.recommendationservice.RecommendationServiceApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Starts the service in-process against local stub upstreams, drives {@code /search} with an open-model load
+ * and fails if SLO thresholds are breached.
+ */
+public class LoadTest {
+    private final static Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    public static void main(String[] args) throws Exception {
+        var settings = new Settings(System.getProperties());
+        var stubs = List.of(
+            new StubUpstream("itunes", "/search", read("/love_and_hate_itunes_response.json"),
+                settings.scope("stub.itunes", "stub")).start(),
+            new StubUpstream("googleBooks", "/books/v1/volumes", read("/love_and_hate_google_response.json"),
+                settings.scope("stub.googleBooks", "stub")).start()
+        );
+
+        var applicationArgs = new LinkedHashMap<String, String>();
+        applicationArgs.put("server.port", "0");
+        applicationArgs.put("itunes_base_uri", stubs.get(0).baseUri());
+        applicationArgs.put("google_books_base_uri", stubs.get(1).baseUri());
+        applicationArgs.put("search.store.path", Files.createTempDirectory("loadtest").resolve("results.log").toString());
+        // stubs speak plain HTTP/1.1
+        applicationArgs.put("search.http.itunes.http2", "false");
+        applicationArgs.put("search.http.googleBooks.http2", "false");
+        // rate limits protect real upstream services, stubs throttle on their own if configured to
+        applicationArgs.put("search.ratelimit.enabled", "false");
+        applicationArgs.put("logging.level.root", "WARN");
+        applicationArgs.putAll(settings.applicationProperties());
+        var context = new SpringApplicationBuilder(RecommendationServiceApplication.class)
+            .run(applicationArgs.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new));
+
+        boolean passed;
+        int rate = settings.getInt("rate", 1000);
+        var queries = IntStream.range(0, settings.getInt("distinct-queries", 1000))
+            .mapToObj(i -> "love and hate " + i)
+            .collect(Collectors.toList());
+        var generator = new LoadGenerator(
+            "http://localhost:" + context.getEnvironment().getProperty("local.server.port"),
+            queries,
+            rate,
+            settings.getInt("max-connections", 2000),
+            settings.getDuration("request-timeout", Duration.ofSeconds(10)));
+        try {
+            var warmup = settings.getDuration("warmup", Duration.ofSeconds(10));
+            log.warn("Warming up for {} at {} rps", warmup, rate);
+            generator.run(warmup);
+
+            var registry = context.getBean(MeterRegistry.class);
+            var before = snapshot(registry, stubs);
+            var duration = settings.getDuration("duration", Duration.ofSeconds(60));
+            log.warn("Running for {} at {} rps", duration, rate);
+            var result = generator.run(duration);
+            var after = snapshot(registry, stubs);
+
+            var report = new LoadReport(rate, result);
+            after.forEach((name, value) -> report.put(name, round(value - before.getOrDefault(name, 0.0))));
+            report.check(settings.scope("slo", "slo"));
+            report.write(Path.of(settings.getString("report", "build/reports/loadtest/report.json")));
+            System.out.println(report);
+            passed = report.passed();
+        } finally {
+            generator.stop();
+            context.close();
+            stubs.forEach(StubUpstream::stop);
+        }
+        if (!passed) {
+            System.err.println("SLO thresholds are breached");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Cumulative counters, which are reported as differences between the end and the start of the measured run.
+     */
+    private static Map<String, Double> snapshot(MeterRegistry registry, List<StubUpstream> stubs) {
+        var values = new LinkedHashMap<String, Double>();
+        for (var stub : stubs) {
+            values.put(stub.getName() + ".stub.requests", (double) stub.requests());
+            values.put(stub.getName() + ".stub.errors", (double) stub.errors());
+            values.put(stub.getName() + ".stub.throttled", (double) stub.throttled());
+        }
+        for (var result : List.of("executed", "collapsed")) {
+            values.put("upstream.calls." + result, registry.find("search.upstream.calls").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum());
+        }
+        for (var result : List.of("hit", "miss", "stale", "fallback")) {
+            values.put("cache.requests." + result, registry.find("search.cache.requests").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum());
+        }
+        values.put("gc.allocatedMb", registry.find("jvm.gc.memory.allocated").counters().stream()
+            .mapToDouble(Counter::count)
+            .sum() / (1024 * 1024));
+        var pauses = registry.find("jvm.gc.pause").timers();
+        values.put("gc.pauses", pauses.stream().mapToDouble(Timer::count).sum());
+        values.put("gc.pauseMs", pauses.stream().mapToDouble(t -> t.totalTime(TimeUnit.MILLISECONDS)).sum());
+        return values;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static byte[] read(String resourcePath) throws IOException {
+        try (var stream = LoadTest.class.getResourceAsStream(resourcePath)) {
+            return Objects.requireNonNull(stream).readAllBytes();
+        }
+    }
+}
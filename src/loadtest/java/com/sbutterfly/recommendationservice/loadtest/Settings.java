@@ -0,0 +1,73 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Load test settings, read from {@code loadtest.*} system properties.
+ * Durations use Spring's format, e.g. {@code 500ms} or {@code 1m}.
+ */
+class Settings {
+    private static final String PREFIX = "loadtest.";
+
+    private final Properties properties;
+
+    Settings(Properties properties) {
+        this.properties = properties;
+    }
+
+    String getString(String name, String defaultValue) {
+        return properties.getProperty(PREFIX + name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        var value = properties.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    double getDouble(String name, double defaultValue) {
+        var value = properties.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    Duration getDuration(String name, Duration defaultValue) {
+        var value = properties.getProperty(PREFIX + name);
+        return value == null ? defaultValue : DurationStyle.detectAndParse(value.trim());
+    }
+
+    /**
+     * Settings of a nested scope, e.g. {@code loadtest.stub.itunes.*} falling back to {@code loadtest.stub.*}.
+     */
+    Settings scope(String name, String fallback) {
+        var scoped = new Properties();
+        for (var key : properties.stringPropertyNames()) {
+            if (key.startsWith(PREFIX + fallback + ".")) {
+                scoped.setProperty(PREFIX + key.substring(PREFIX.length() + fallback.length() + 1), properties.getProperty(key));
+            }
+        }
+        for (var key : properties.stringPropertyNames()) {
+            if (key.startsWith(PREFIX + name + ".")) {
+                scoped.setProperty(PREFIX + key.substring(PREFIX.length() + name.length() + 1), properties.getProperty(key));
+            }
+        }
+        return new Settings(scoped);
+    }
+
+    /**
+     * Properties passed to the application as {@code loadtest.app.<property>}.
+     */
+    Map<String, String> applicationProperties() {
+        var result = new TreeMap<String, String>();
+        var prefix = PREFIX + "app.";
+        for (var key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                result.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return result;
+    }
+}
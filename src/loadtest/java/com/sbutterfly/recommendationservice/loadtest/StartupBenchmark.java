@@ -0,0 +1,182 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sbutterfly.recommendationservice.RecommendationServiceApplication;
+
+/**
+ * Starts the service in a new JVM against local stub upstreams and measures time from the launch of the process
+ * to the first successful {@code /search} and the resident set size of the process right after it.
+ */
+public class StartupBenchmark {
+    public static void main(String[] args) throws Exception {
+        var root = new Settings(System.getProperties());
+        var settings = root.scope("startup", "startup");
+        var stubs = List.of(
+            new StubUpstream("itunes", "/search", read("/love_and_hate_itunes_response.json"),
+                root.scope("stub.itunes", "stub")).start(),
+            new StubUpstream("googleBooks", "/books/v1/volumes", read("/love_and_hate_google_response.json"),
+                root.scope("stub.googleBooks", "stub")).start()
+        );
+
+        var command = new ArrayList<String>();
+        command.add(ProcessHandle.current().info().command().orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        Arrays.stream(settings.getString("jvm-args", "").trim().split("\\s+"))
+            .filter(arg -> !arg.isEmpty())
+            .forEach(command::add);
+        var archive = settings.getString("cds-archive", "");
+        if (!archive.isEmpty() && Files.exists(Path.of(archive))) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+            command.add("-Xshare:auto");
+        }
+        command.add("-cp");
+        command.add(settings.getString("classpath", System.getProperty("java.class.path")));
+        command.add(RecommendationServiceApplication.class.getName());
+
+        var applicationArgs = new LinkedHashMap<String, String>();
+        applicationArgs.put("spring.profiles.active", settings.getString("profile", "fast-startup"));
+        applicationArgs.put("itunes_base_uri", stubs.get(0).baseUri());
+        applicationArgs.put("google_books_base_uri", stubs.get(1).baseUri());
+        // stubs speak plain HTTP/1.1
+        applicationArgs.put("search.http.itunes.http2", "false");
+        applicationArgs.put("search.http.googleBooks.http2", "false");
+        applicationArgs.put("search.ratelimit.enabled", "false");
+        applicationArgs.putAll(root.applicationProperties());
+
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(100)).build();
+        var logs = Path.of(settings.getString("logs", "build/reports/startup"));
+        Files.createDirectories(logs);
+        int runs = settings.getInt("runs", 5);
+        var times = new long[runs];
+        var rss = new long[runs];
+        try {
+            for (int run = 0; run < runs; run++) {
+                int port = freePort();
+                var runCommand = new ArrayList<>(command);
+                runCommand.add("--server.port=" + port);
+                runCommand.add("--search.store.path=" + Files.createTempDirectory("startup").resolve("results.log"));
+                applicationArgs.forEach((name, value) -> runCommand.add("--" + name + "=" + value));
+                var log = logs.resolve("run-" + run + ".log").toFile();
+
+                long start = System.nanoTime();
+                var process = new ProcessBuilder(runCommand).redirectErrorStream(true).redirectOutput(log).start();
+                try {
+                    times[run] = firstSearch(client, port, process, settings.getDuration("timeout", Duration.ofMinutes(1))) - start;
+                    rss[run] = rssKb(process.pid());
+                } finally {
+                    process.destroy();
+                    if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                }
+                System.out.printf("Run %d: first search in %d ms, RSS %d MB%n", run, TimeUnit.NANOSECONDS.toMillis(times[run]), rss[run] / 1024);
+            }
+        } finally {
+            stubs.forEach(StubUpstream::stop);
+        }
+
+        Arrays.sort(times);
+        Arrays.sort(rss);
+        long medianMillis = TimeUnit.NANOSECONDS.toMillis(times[runs / 2]);
+        long medianRssMb = rss[runs / 2] / 1024;
+        var violations = new ArrayList<String>();
+        var maxTime = settings.getDuration("max-time", null);
+        if (maxTime != null && medianMillis > maxTime.toMillis()) {
+            violations.add(String.format("time to first search %dms exceeds %dms", medianMillis, maxTime.toMillis()));
+        }
+        int maxRssMb = settings.getInt("max-rss-mb", 0);
+        if (maxRssMb > 0 && medianRssMb > maxRssMb) {
+            violations.add(String.format("RSS %dMB exceeds %dMB", medianRssMb, maxRssMb));
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("jvmArgs", command.subList(1, command.indexOf("-cp")));
+        report.put("profile", applicationArgs.get("spring.profiles.active"));
+        report.put("runs", runs);
+        report.put("firstSearchMs", Map.of("median", medianMillis, "max", TimeUnit.NANOSECONDS.toMillis(times[runs - 1])));
+        report.put("rssMb", Map.of("median", medianRssMb, "max", rss[runs - 1] / 1024));
+        report.put("violations", violations);
+        var reportPath = Path.of(settings.getString("report", "build/reports/startup/report.json"));
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportPath.toFile(), report);
+        System.out.printf("First search in %d ms, RSS %d MB (medians of %d runs)%n", medianMillis, medianRssMb, runs);
+        if (!violations.isEmpty()) {
+            System.err.println("Startup thresholds are breached: " + violations);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Polls {@code /search} until it answers with 200.
+     *
+     * @return {@link System#nanoTime()} of the successful response
+     */
+    private static long firstSearch(HttpClient client, int port, Process process, Duration timeout) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/search?name=love+and+hate"))
+            .timeout(Duration.ofSeconds(10))
+            .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Service exited with " + process.exitValue() + " before the first search");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime();
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful search within " + timeout);
+    }
+
+    /**
+     * Resident set size of the process in kilobytes, read from procfs on Linux or from {@code ps} elsewhere.
+     */
+    private static long rssKb(long pid) throws IOException, InterruptedException {
+        var status = Path.of("/proc", String.valueOf(pid), "status");
+        if (Files.exists(status)) {
+            for (var line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        var ps = new ProcessBuilder("ps", "-o", "rss=", "-p", String.valueOf(pid)).start();
+        var output = new String(ps.getInputStream().readAllBytes()).trim();
+        ps.waitFor();
+        return output.isEmpty() ? 0 : Long.parseLong(output);
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static byte[] read(String resourcePath) throws IOException {
+        try (var stream = StartupBenchmark.class.getResourceAsStream(resourcePath)) {
+            return Objects.requireNonNull(stream).readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sbutterfly.recommendationservice.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Local stand-in for an upstream service, which answers with a recorded response
+ * after a log-normal latency, and fails or throttles a share of requests.
+ */
+class StubUpstream {
+    private static final double Z_99 = 2.326;
+
+    private final String name;
+    private final String path;
+    private final byte[] body;
+    private final Duration median;
+    private final double sigma;
+    private final double errorRate;
+    private final long throttlePeriodNanos;
+    private final long throttleDurationNanos;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private DisposableServer server;
+
+    StubUpstream(String name, String path, byte[] body, Settings settings) {
+        this.name = name;
+        this.path = path;
+        this.body = body;
+        this.median = settings.getDuration("latency.median", Duration.ofMillis(50));
+        var p99 = settings.getDuration("latency.p99", median.multipliedBy(4));
+        this.sigma = p99.compareTo(median) > 0 ? Math.log((double) p99.toNanos() / median.toNanos()) / Z_99 : 0;
+        this.errorRate = settings.getDouble("error-rate", 0);
+        this.throttlePeriodNanos = settings.getDuration("throttle.period", Duration.ZERO).toNanos();
+        this.throttleDurationNanos = settings.getDuration("throttle.duration", Duration.ZERO).toNanos();
+    }
+
+    StubUpstream start() {
+        server = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get(path, (request, response) -> handle(response)))
+            .bindNow();
+        return this;
+    }
+
+    String baseUri() {
+        return "http://localhost:" + server.port();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long throttled() {
+        return throttled.sum();
+    }
+
+    void stop() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> handle(HttpServerResponse response) {
+        requests.increment();
+        if (isThrottling()) {
+            throttled.increment();
+            return response.status(HttpResponseStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .send()
+                .then();
+        }
+        var random = ThreadLocalRandom.current();
+        var latency = Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * random.nextGaussian())));
+        if (random.nextDouble() < errorRate) {
+            errors.increment();
+            return Mono.delay(latency)
+                .then(response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send().then());
+        }
+        return Mono.delay(latency)
+            .then(response
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendByteArray(Mono.just(body))
+                .then());
+    }
+
+    private boolean isThrottling() {
+        if (throttlePeriodNanos <= 0 || throttleDurationNanos <= 0) {
+            return false;
+        }
+        return (System.nanoTime() - startNanos) % throttlePeriodNanos < throttleDurationNanos;
+    }
+}
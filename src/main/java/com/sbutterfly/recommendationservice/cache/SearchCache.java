@@ -0,0 +1,250 @@
+package com.sbutterfly.recommendationservice.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory cache of upstream search results with stale-while-revalidate semantics.
+ * <p>
+ * Every entry goes through three phases:
+ * <ul>
+ *     <li>fresh (up to {@code ttl}) - returned as is;</li>
+ *     <li>stale (up to {@code ttl + stale-while-revalidate}) - returned immediately, while a single background
+ *     request refreshes the entry;</li>
+ *     <li>retained (up to {@code fallback-ttl}) - not returned on its own, but used as a fallback when
+ *     the upstream service fails or times out.</li>
+ * </ul>
+ * Empty results are cached as well, but with a shorter {@code negative-ttl}.
+ * TTLs could be overridden per provider, e.g. {@code search.cache.itunes.ttl=10m}.
+ */
+@Component
+public class SearchCache {
+    private final static Logger log = LoggerFactory.getLogger(SearchCache.class);
+
+    private final boolean enabled;
+    private final Environment environment;
+    private final Duration defaultTtl;
+    private final Duration defaultNegativeTtl;
+    private final Duration defaultStaleWhileRevalidate;
+    private final Duration defaultFallbackTtl;
+    private final MeterRegistry meterRegistry;
+    private final Ticker ticker;
+    private final Cache<SearchKey, Entry> cache;
+    private final Set<SearchKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SearchCache(Environment environment,
+                       @Value("${search.cache.enabled:true}") boolean enabled,
+                       @Value("${search.cache.max-entries:10000}") long maxEntries,
+                       @Value("${search.cache.max-weight:67108864}") long maxWeight,
+                       @Value("${search.cache.ttl:5m}") Duration ttl,
+                       @Value("${search.cache.negative-ttl:30s}") Duration negativeTtl,
+                       @Value("${search.cache.stale-while-revalidate:1m}") Duration staleWhileRevalidate,
+                       @Value("${search.cache.fallback-ttl:1h}") Duration fallbackTtl,
+                       MeterRegistry meterRegistry) {
+        this(environment, enabled, maxEntries, maxWeight, ttl, negativeTtl, staleWhileRevalidate, fallbackTtl,
+            meterRegistry, Ticker.systemTicker());
+    }
+
+    SearchCache(Environment environment, boolean enabled, long maxEntries, long maxWeight, Duration ttl,
+                Duration negativeTtl, Duration staleWhileRevalidate, Duration fallbackTtl, MeterRegistry meterRegistry,
+                Ticker ticker) {
+        this.enabled = enabled;
+        this.environment = environment;
+        this.defaultTtl = ttl;
+        this.defaultNegativeTtl = negativeTtl;
+        this.defaultStaleWhileRevalidate = staleWhileRevalidate;
+        this.defaultFallbackTtl = fallbackTtl;
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+
+        // Caffeine can't bound both size and weight, so every entry weighs at least maxWeight / maxEntries.
+        // Then total weight <= maxWeight guarantees that there are no more than maxEntries entries.
+        int minWeight = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxWeight / Math.max(1, maxEntries)));
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher((SearchKey key, Entry entry) -> Math.max(minWeight, entry.weight))
+            .expireAfter(new EntryExpiry())
+            .ticker(ticker)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search");
+    }
+
+    /**
+     * Returns cached items for the given provider and query, or subscribes to {@code loader} and caches its result.
+     * If the loader fails and there is a retained entry, the retained entry is returned instead of the error.
+     */
+    public Mono<List<Item>> get(String provider, String query, int limit, Supplier<Mono<List<Item>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            var key = SearchKey.of(provider, query, limit);
+            var entry = cache.getIfPresent(key);
+            long now = ticker.read();
+
+            if (entry != null && now < entry.freshUntil) {
+                counter(provider, "hit").increment();
+                return Mono.just(entry.items);
+            }
+            if (entry != null && now < entry.staleUntil) {
+                counter(provider, "stale").increment();
+                refresh(key, loader);
+                return Mono.just(entry.items);
+            }
+
+            counter(provider, "miss").increment();
+            var load = load(key, loader);
+            if (entry == null) {
+                return load;
+            }
+            return load.onErrorResume(e -> {
+                log.warn("{} search failed, return cached result for {}", provider, key, e);
+                counter(provider, "fallback").increment();
+                return Mono.just(entry.items);
+            });
+        });
+    }
+
+    /**
+     * Reloads the entry if it's missing or gets stale within {@code ahead}, unless it's already being refreshed.
+     * Emits true if the upstream service was called.
+     */
+    public Mono<Boolean> warm(String provider, String query, int limit, Duration ahead, Supplier<Mono<List<Item>>> loader) {
+        if (!enabled) {
+            return Mono.just(false);
+        }
+        return Mono.defer(() -> {
+            var key = SearchKey.of(provider, query, limit);
+            var entry = cache.getIfPresent(key);
+            if (entry != null && entry.freshUntil - ticker.read() > ahead.toNanos()) {
+                return Mono.just(false);
+            }
+            if (!refreshing.add(key)) {
+                return Mono.just(false);
+            }
+            return load(key, loader)
+                .doFinally(signal -> refreshing.remove(key))
+                .thenReturn(true);
+        });
+    }
+
+    /**
+     * Emits the cached copy of loaded items, so every response of the entry gives the same list.
+     */
+    private Mono<List<Item>> load(SearchKey key, Supplier<Mono<List<Item>>> loader) {
+        return Mono.defer(loader)
+            .map(items -> {
+                var entry = newEntry(key, items);
+                cache.put(key, entry);
+                return entry.items;
+            });
+    }
+
+    private void refresh(SearchKey key, Supplier<Mono<List<Item>>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        load(key, loader)
+            .doFinally(signal -> refreshing.remove(key))
+            .subscribe(
+                items -> log.debug("Refreshed {} with {} items", key, items.size()),
+                e -> log.debug("Failed to refresh {}", key, e)
+            );
+    }
+
+    private Entry newEntry(SearchKey key, List<Item> items) {
+        var provider = key.getProvider();
+        var ttl = items.isEmpty()
+            ? duration(provider, "negative-ttl", defaultNegativeTtl)
+            : duration(provider, "ttl", defaultTtl);
+        var staleWhileRevalidate = duration(provider, "stale-while-revalidate", defaultStaleWhileRevalidate);
+        var fallbackTtl = duration(provider, "fallback-ttl", defaultFallbackTtl);
+
+        long now = ticker.read();
+        long freshUntil = now + ttl.toNanos();
+        long staleUntil = freshUntil + staleWhileRevalidate.toNanos();
+        long retainUntil = Math.max(staleUntil, now + fallbackTtl.toNanos());
+        return new Entry(List.copyOf(items), weigh(key, items), freshUntil, staleUntil, retainUntil);
+    }
+
+    private Duration duration(String provider, String property, Duration defaultValue) {
+        return environment.getProperty("search.cache." + provider + "." + property, Duration.class, defaultValue);
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.cache.requests")
+            .description("Search cache lookups by provider and result (hit, miss, stale, fallback)")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Rough estimate of retained bytes: two bytes per char plus object headers.
+     */
+    private static int weigh(SearchKey key, List<Item> items) {
+        long weight = 64 + 2L * key.getQuery().length();
+        for (Item item : items) {
+            weight += 64 + 2L * (length(item.getTitle()) + length(item.getAuthors()));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static class Entry {
+        private final List<Item> items;
+        private final int weight;
+        private final long freshUntil;
+        private final long staleUntil;
+        private final long retainUntil;
+
+        private Entry(List<Item> items, int weight, long freshUntil, long staleUntil, long retainUntil) {
+            this.items = items;
+            this.weight = weight;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+            this.retainUntil = retainUntil;
+        }
+    }
+
+    private static class EntryExpiry implements Expiry<SearchKey, Entry> {
+        @Override
+        public long expireAfterCreate(SearchKey key, Entry entry, long currentTime) {
+            return Math.max(0, entry.retainUntil - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(SearchKey key, Entry entry, long currentTime, long currentDuration) {
+            return Math.max(0, entry.retainUntil - currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(SearchKey key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
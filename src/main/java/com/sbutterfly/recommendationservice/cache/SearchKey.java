@@ -0,0 +1,83 @@
+package com.sbutterfly.recommendationservice.cache;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Identifies a single upstream search: the provider, the normalized query and the requested limit.
+ * Queries which differ only in case or whitespace share the same key.
+ */
+public final class SearchKey {
+    private final String provider;
+    private final String query;
+    private final int limit;
+
+    private SearchKey(String provider, String query, int limit) {
+        this.provider = Objects.requireNonNull(provider);
+        this.query = Objects.requireNonNull(query);
+        this.limit = limit;
+    }
+
+    public static SearchKey of(String provider, String query, int limit) {
+        return new SearchKey(provider, normalize(query), limit);
+    }
+
+    /**
+     * Lower-cases the query and collapses runs of whitespace, so "Love  and Hate " and "love and hate" are equal.
+     */
+    public static String normalize(String query) {
+        var builder = new StringBuilder(query.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(c);
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchKey that = (SearchKey) o;
+        return limit == that.limit && provider.equals(that.provider) && query.equals(that.query);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(provider, query, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchKey{" +
+            "provider='" + provider + '\'' +
+            ", query='" + query + '\'' +
+            ", limit=" + limit +
+            '}';
+    }
+}
@@ -0,0 +1,132 @@
+package com.sbutterfly.recommendationservice.cache;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+/**
+ * Coalesces concurrent identical upstream calls: while a call for a key is in flight,
+ * all other subscribers for the same key share its result instead of sending their own request.
+ * The upstream call is cancelled when all of its subscribers have cancelled.
+ */
+@Component
+public class SingleFlight {
+    private final ConcurrentMap<SearchKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Mono<List<Item>> execute(SearchKey key, Supplier<Mono<List<Item>>> call) {
+        return Mono.deferContextual(context -> {
+            while (true) {
+                var created = new boolean[1];
+                var flight = inFlight.computeIfAbsent(key, k -> {
+                    created[0] = true;
+                    return new Flight(k);
+                });
+                if (!flight.acquire()) {
+                    // the last subscriber has just cancelled this flight, start a new one
+                    continue;
+                }
+                counter(key.getProvider(), created[0] ? "executed" : "collapsed").increment();
+                if (created[0]) {
+                    flight.start(call, context);
+                }
+                return flight.result.asMono()
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            flight.release();
+                        }
+                    });
+            }
+        });
+    }
+
+    /**
+     * Number of distinct calls which are currently in flight.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.upstream.calls")
+            .description("Upstream calls by provider, either executed or collapsed into an in-flight call")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private class Flight {
+        private final SearchKey key;
+        private final Sinks.One<List<Item>> result = Sinks.one();
+        private int subscribers;
+        private boolean cancelled;
+        private Disposable upstream;
+
+        private Flight(SearchKey key) {
+            this.key = key;
+        }
+
+        synchronized boolean acquire() {
+            if (cancelled) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        void start(Supplier<Mono<List<Item>>> call, ContextView context) {
+            // the key is forgotten before the result is emitted, so subscribers never find a finished flight
+            var disposable = Mono.defer(call).contextWrite(context).subscribe(
+                value -> {
+                    inFlight.remove(key, this);
+                    result.tryEmitValue(value);
+                },
+                error -> {
+                    inFlight.remove(key, this);
+                    result.tryEmitError(error);
+                },
+                () -> {
+                    inFlight.remove(key, this);
+                    result.tryEmitEmpty();
+                }
+            );
+            synchronized (this) {
+                upstream = disposable;
+                if (!cancelled) {
+                    return;
+                }
+            }
+            disposable.dispose();
+        }
+
+        void release() {
+            Disposable toDispose;
+            synchronized (this) {
+                if (--subscribers > 0 || cancelled) {
+                    return;
+                }
+                cancelled = true;
+                toDispose = upstream;
+            }
+            inFlight.remove(key, this);
+            if (toDispose != null) {
+                toDispose.dispose();
+            }
+        }
+    }
+}
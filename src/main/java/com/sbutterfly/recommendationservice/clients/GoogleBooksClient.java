@@ -1,90 +1,134 @@
 package com.sbutterfly.recommendationservice.clients;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.cache.SingleFlight;
+import com.sbutterfly.recommendationservice.config.UpstreamConnectors;
+import com.sbutterfly.recommendationservice.dedup.Deduplicator;
+import com.sbutterfly.recommendationservice.health.TrafficStats;
+import com.sbutterfly.recommendationservice.health.UpstreamHealth;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
 import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.ItemPage;
+import com.sbutterfly.recommendationservice.ratelimit.RateLimiters;
+import com.sbutterfly.recommendationservice.resilience.ResiliencePolicies;
+import com.sbutterfly.recommendationservice.suggest.Suggestions;
+import com.sbutterfly.recommendationservice.tracing.TraceContext;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.metrics.AutoTimer;
 import org.springframework.boot.actuate.metrics.web.reactive.client.DefaultWebClientExchangeTagsProvider;
 import org.springframework.boot.actuate.metrics.web.reactive.client.MetricsWebClientFilterFunction;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 @Service
-public class GoogleBooksClient {
+public class GoogleBooksClient implements SearchProvider {
+    private static final int MAX_PAGE_SIZE = 40;
+
     private final int limit;
+    private final Duration timeout;
     private final WebClient client;
+    private final SingleFlight singleFlight;
+    private final ResiliencePolicies resiliencePolicies;
+    private final TrafficStats trafficStats;
+    private final Suggestions suggestions;
+    private final Deduplicator deduplicator;
+    private final Timer decodeTimer;
 
     public GoogleBooksClient(WebClient.Builder webclientBuilder,
                              @Value("${google_books_base_uri}") String baseUrl,
-                             @Value("${response.limit:5}") int limit,
-                             MeterRegistry meterRegistry) {
+                             @Value("${search.providers.googleBooks.limit:${response.limit:5}}") int limit,
+                             @Value("${search.providers.googleBooks.timeout:5s}") Duration timeout,
+                             MeterRegistry meterRegistry,
+                             SingleFlight singleFlight,
+                             RateLimiters rateLimiters,
+                             ResiliencePolicies resiliencePolicies,
+                             UpstreamConnectors upstreamConnectors,
+                             UpstreamHealth upstreamHealth,
+                             Suggestions suggestions,
+                             Deduplicator deduplicator,
+                             SearchMetrics searchMetrics) {
         this.limit = limit;
+        this.timeout = timeout;
+        this.singleFlight = singleFlight;
+        this.resiliencePolicies = resiliencePolicies;
+        this.trafficStats = upstreamHealth.forProvider(getName());
+        this.suggestions = suggestions;
+        this.deduplicator = deduplicator;
+        this.decodeTimer = searchMetrics.timer("decode", getName());
         var metricsWebClientFilterFunction =
             new MetricsWebClientFilterFunction(meterRegistry, new DefaultWebClientExchangeTagsProvider(), "googleBooks", AutoTimer.ENABLED);
         this.client = webclientBuilder
             .baseUrl(baseUrl)
+            .clientConnector(upstreamConnectors.forProvider(getName()))
+            .filter(TraceContext.propagation())
+            .filter(rateLimiters.forProvider(getName()))
             .filter(metricsWebClientFilterFunction)
             .build();
     }
 
+    @Override
+    public String getName() {
+        return "googleBooks";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Google books";
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
     public Mono<List<Item>> search(String bookName) {
+        return singleFlight.execute(SearchKey.of(getName(), bookName, limit), () ->
+            deduplicator.fill(getName(), limit, MAX_PAGE_SIZE, (offset, pageSize) ->
+                    resiliencePolicies.execute(getName(), () -> trafficStats.record(doSearch(bookName, offset, pageSize))))
+                .doOnNext(suggestions::record));
+    }
+
+    @Override
+    public Mono<ItemPage> searchPage(String bookName, int offset, int pageSize) {
+        return deduplicator.fillPage(getName(), offset, pageSize, MAX_PAGE_SIZE, (pageOffset, size) ->
+                resiliencePolicies.execute(getName(), () -> trafficStats.record(doSearch(bookName, pageOffset, size))))
+            .doOnNext(page -> suggestions.record(page.getItems()));
+    }
+
+    @Override
+    public Mono<List<Item>> probe(String bookName) {
+        return doSearch(bookName, 0, limit);
+    }
+
+    private Mono<List<Item>> doSearch(String bookName, int offset, int pageSize) {
         var request = client.get();
         var spec = request.uri("books/v1/volumes", uriBuilder ->
             uriBuilder
                 .queryParam("q", "intitle:" + bookName)
-                .queryParam("maxResults", limit)
+                .queryParam("maxResults", pageSize)
+                .queryParam("startIndex", offset)
                 .queryParam("printType", "books")
                 .queryParam("projection", "lite")
                 .build()
         );
 
-        return spec.retrieve()
-            .bodyToMono(GoogleBooksResponse.class)
-            .map(new Function<GoogleBooksResponse, List<Item>>() {
-                @Override
-                public List<Item> apply(GoogleBooksResponse response) {
-                    return response.getItems().stream()
-                        .map(v -> {
-                            var title = v.getVolumeInfo().getTitle();
-                            var authors = String.join(", ", v.getVolumeInfo().getAuthors());
-                            return new Item(title, authors, Item.Type.BOOK);
-                        })
-                        .collect(Collectors.toList());
-                }
-            });
-    }
-
-    private static class GoogleBooksResponse {
-        private List<Item> items;
-
-        public List<Item> getItems() {
-            return items == null ? List.of() : items;
-        }
-
-        private static class VolumeInfo {
-            private String title;
-            private List<String> authors;
-
-            public String getTitle() {
-                return title;
-            }
-
-            public List<String> getAuthors() {
-                return authors == null ? List.of() : authors;
-            }
-        }
-
-        private static class Item {
-            private VolumeInfo volumeInfo;
-
-            public VolumeInfo getVolumeInfo() {
-                return volumeInfo;
-            }
-        }
+        return StreamingItemDecoder.decode(
+            spec.retrieve().bodyToFlux(DataBuffer.class),
+            () -> new GoogleBooksResponseDecoder(pageSize),
+            decodeTimer
+        );
     }
 }
@@ -0,0 +1,58 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+
+/**
+ * Decodes books from Google books volumes response:
+ * {@code {"items": [{"volumeInfo": {"title": "...", "authors": ["...", "..."], ...}, ...}]}}
+ * Authors are joined by comma, volumes without volume info are skipped.
+ */
+public class GoogleBooksResponseDecoder extends StreamingItemDecoder {
+    private boolean hasVolumeInfo;
+    private String title;
+    private final StringBuilder authors = new StringBuilder();
+
+    public GoogleBooksResponseDecoder(int limit) {
+        super(limit);
+    }
+
+    @Override
+    protected void onStartObject(List<String> path) {
+        if (isVolume(path)) {
+            hasVolumeInfo = false;
+            title = null;
+            authors.setLength(0);
+        } else if (isVolumeInfo(path)) {
+            hasVolumeInfo = true;
+        }
+    }
+
+    @Override
+    protected void onString(List<String> path, String fieldName, String value) {
+        if (isVolumeInfo(path) && "title".equals(fieldName)) {
+            title = value;
+        } else if (isAt(path, "", "items", ELEMENT, "volumeInfo", "authors")) {
+            if (authors.length() > 0) {
+                authors.append(", ");
+            }
+            authors.append(value);
+        }
+    }
+
+    @Override
+    protected void onEndObject(List<String> path) {
+        if (isVolume(path) && hasVolumeInfo) {
+            emit(new Item(title, authors.toString(), Item.Type.BOOK));
+        }
+    }
+
+    private static boolean isVolume(List<String> path) {
+        return isAt(path, "", "items", ELEMENT);
+    }
+
+    private static boolean isVolumeInfo(List<String> path) {
+        return isAt(path, "", "items", ELEMENT, "volumeInfo");
+    }
+}
@@ -1,38 +1,126 @@
 package com.sbutterfly.recommendationservice.clients;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.cache.SingleFlight;
+import com.sbutterfly.recommendationservice.config.UpstreamConnectors;
+import com.sbutterfly.recommendationservice.dedup.Deduplicator;
+import com.sbutterfly.recommendationservice.health.TrafficStats;
+import com.sbutterfly.recommendationservice.health.UpstreamHealth;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
 import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.ItemPage;
+import com.sbutterfly.recommendationservice.ratelimit.RateLimiters;
+import com.sbutterfly.recommendationservice.resilience.ResiliencePolicies;
+import com.sbutterfly.recommendationservice.suggest.Suggestions;
+import com.sbutterfly.recommendationservice.tracing.TraceContext;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.metrics.AutoTimer;
 import org.springframework.boot.actuate.metrics.web.reactive.client.DefaultWebClientExchangeTagsProvider;
 import org.springframework.boot.actuate.metrics.web.reactive.client.MetricsWebClientFilterFunction;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 @Service
-public class ItunesClient {
+public class ItunesClient implements SearchProvider {
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final int limit;
+    private final Duration timeout;
     private final WebClient client;
+    private final SingleFlight singleFlight;
+    private final ResiliencePolicies resiliencePolicies;
+    private final TrafficStats trafficStats;
+    private final Suggestions suggestions;
+    private final Deduplicator deduplicator;
+    private final Timer decodeTimer;
 
     public ItunesClient(WebClient.Builder webclientBuilder,
                         @Value("${itunes_base_uri}") String baseUrl,
-                        @Value("${response.limit:5}") int limit,
-                        MeterRegistry meterRegistry) {
+                        @Value("${search.providers.itunes.limit:${response.limit:5}}") int limit,
+                        @Value("${search.providers.itunes.timeout:5s}") Duration timeout,
+                        MeterRegistry meterRegistry,
+                        SingleFlight singleFlight,
+                        RateLimiters rateLimiters,
+                        ResiliencePolicies resiliencePolicies,
+                        UpstreamConnectors upstreamConnectors,
+                        UpstreamHealth upstreamHealth,
+                        Suggestions suggestions,
+                        Deduplicator deduplicator,
+                        SearchMetrics searchMetrics) {
         this.limit = limit;
+        this.timeout = timeout;
+        this.singleFlight = singleFlight;
+        this.resiliencePolicies = resiliencePolicies;
+        this.trafficStats = upstreamHealth.forProvider(getName());
+        this.suggestions = suggestions;
+        this.deduplicator = deduplicator;
+        this.decodeTimer = searchMetrics.timer("decode", getName());
         var metricsWebClientFilterFunction =
             new MetricsWebClientFilterFunction(meterRegistry, new DefaultWebClientExchangeTagsProvider(), "iTunes", AutoTimer.ENABLED);
         this.client = webclientBuilder
             .baseUrl(baseUrl)
+            .clientConnector(upstreamConnectors.forProvider(getName()))
+            .filter(TraceContext.propagation())
+            .filter(rateLimiters.forProvider(getName()))
             .filter(metricsWebClientFilterFunction)
             .build();
     }
 
+    @Override
+    public String getName() {
+        return "itunes";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "iTunes";
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
     public Mono<List<Item>> search(String albumName) {
+        return singleFlight.execute(SearchKey.of(getName(), albumName, limit), () ->
+            deduplicator.fill(getName(), limit, MAX_PAGE_SIZE, (offset, pageSize) ->
+                    resiliencePolicies.execute(getName(), () -> trafficStats.record(doSearch(albumName, offset, pageSize))))
+                .doOnNext(suggestions::record));
+    }
+
+    @Override
+    public Mono<ItemPage> searchPage(String albumName, int offset, int pageSize) {
+        return deduplicator.fillPage(getName(), offset, pageSize, MAX_PAGE_SIZE, (pageOffset, size) ->
+                resiliencePolicies.execute(getName(), () -> trafficStats.record(doSearch(albumName, pageOffset, size))))
+            .doOnNext(page -> suggestions.record(page.getItems()));
+    }
+
+    @Override
+    public Mono<List<Item>> probe(String albumName) {
+        return doSearch(albumName, 0, limit);
+    }
+
+    /**
+     * iTunes search has no offset, so a page is the tail of the first {@code offset + pageSize} results.
+     */
+    private Mono<List<Item>> doSearch(String albumName, int offset, int pageSize) {
+        int upstreamLimit = Math.min(MAX_PAGE_SIZE, offset + pageSize);
+        if (offset >= upstreamLimit) {
+            return Mono.just(List.of());
+        }
         var request = client.get();
         var spec = request.uri("search", uriBuilder ->
                 uriBuilder
@@ -40,45 +128,14 @@ public class ItunesClient {
                     .queryParam("country", "NL")
                     .queryParam("media", "music")
                     .queryParam("entity", "album")
-                    .queryParam("limit", limit)
+                    .queryParam("limit", upstreamLimit)
                     .build()
             );
 
-        return spec.retrieve()
-            .bodyToMono(ITunesResponse.class)
-            .map(new Function<ITunesResponse, List<Item>>() {
-                @Override
-                public List<Item> apply(ITunesResponse response) {
-                    return response.getResults().stream()
-                        .map(v -> new Item(v.getCollectionName(), v.getArtistName(), Item.Type.ALBUM))
-                        .collect(Collectors.toList());
-                }
-            });
-    }
-
-    private static class ITunesResponse {
-        private int resultCount;
-        private List<Result> results;
-
-        public int getResultCount() {
-            return resultCount;
-        }
-
-        public List<Result> getResults() {
-            return results;
-        }
-
-        private static class Result {
-            private String collectionName;
-            private String artistName;
-
-            public String getCollectionName() {
-                return collectionName;
-            }
-
-            public String getArtistName() {
-                return artistName;
-            }
-        }
+        return StreamingItemDecoder.decode(
+            spec.retrieve().bodyToFlux(DataBuffer.class),
+            () -> new ItunesResponseDecoder(upstreamLimit),
+            decodeTimer
+        ).map(items -> items.size() > offset ? items.subList(offset, items.size()) : List.of());
     }
 }
@@ -0,0 +1,49 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+
+/**
+ * Decodes albums from iTunes search response:
+ * {@code {"resultCount": 1, "results": [{"collectionName": "...", "artistName": "...", ...}]}}
+ */
+public class ItunesResponseDecoder extends StreamingItemDecoder {
+    private String collectionName;
+    private String artistName;
+
+    public ItunesResponseDecoder(int limit) {
+        super(limit);
+    }
+
+    @Override
+    protected void onStartObject(List<String> path) {
+        if (isResult(path)) {
+            collectionName = null;
+            artistName = null;
+        }
+    }
+
+    @Override
+    protected void onString(List<String> path, String fieldName, String value) {
+        if (!isResult(path)) {
+            return;
+        }
+        if ("collectionName".equals(fieldName)) {
+            collectionName = value;
+        } else if ("artistName".equals(fieldName)) {
+            artistName = value;
+        }
+    }
+
+    @Override
+    protected void onEndObject(List<String> path) {
+        if (isResult(path)) {
+            emit(new Item(collectionName, artistName, Item.Type.ALBUM));
+        }
+    }
+
+    private static boolean isResult(List<String> path) {
+        return isAt(path, "", "results", ELEMENT);
+    }
+}
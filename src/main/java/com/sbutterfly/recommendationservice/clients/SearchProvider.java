@@ -0,0 +1,48 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.ItemPage;
+import reactor.core.publisher.Mono;
+
+/**
+ * An upstream service, which could be searched for items.
+ * Every bean implementing this interface could be enabled by adding its name to {@code search.providers} property.
+ */
+public interface SearchProvider {
+
+    /**
+     * Name used in properties, metrics and cache keys, e.g. "itunes".
+     */
+    String getName();
+
+    /**
+     * Human-readable name used in error messages, e.g. "iTunes".
+     */
+    String getDisplayName();
+
+    /**
+     * Max number of items requested from the upstream service.
+     */
+    int getLimit();
+
+    /**
+     * Time budget of a single upstream call.
+     */
+    Duration getTimeout();
+
+    Mono<List<Item>> search(String query);
+
+    /**
+     * Searches a page of up to {@code pageSize} items starting at the upstream offset.
+     * Unlike {@link #search}, pages are neither coalesced nor cached.
+     */
+    Mono<ItemPage> searchPage(String query, int offset, int pageSize);
+
+    /**
+     * Calls the upstream service directly, so health probes are neither coalesced, deduplicated nor recorded.
+     */
+    Mono<List<Item>> probe(String query);
+}
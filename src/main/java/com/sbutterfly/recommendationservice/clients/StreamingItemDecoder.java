@@ -0,0 +1,218 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Incrementally decodes items from an upstream json response without binding it to DTOs.
+ * Subclasses pick fields by the path of their container, e.g. {@code ["", "items", "[]"]} for Google books volumes.
+ * Decoding stops as soon as {@code limit} items are decoded. A decoder is stateful and decodes a single response.
+ */
+public abstract class StreamingItemDecoder {
+    protected static final String ELEMENT = "[]";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final int limit;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final List<String> path = new ArrayList<>();
+    private final List<Boolean> arrays = new ArrayList<>();
+    private List<Item> decoded = new ArrayList<>();
+    private String fieldName;
+    private int count;
+
+    protected StreamingItemDecoder(int limit) {
+        this.limit = limit;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Decodes items from the response body with a new decoder.
+     * The body is cancelled as soon as the decoder reaches its limit.
+     */
+    public static Mono<List<Item>> decode(Flux<DataBuffer> body, Supplier<? extends StreamingItemDecoder> decoderFactory) {
+        return decode(body, decoderFactory, null);
+    }
+
+    /**
+     * Same as {@link #decode(Flux, Supplier)}, but the time spent in the decoder, without waiting for chunks,
+     * is recorded by {@code timer} if it's not null.
+     */
+    public static Mono<List<Item>> decode(Flux<DataBuffer> body, Supplier<? extends StreamingItemDecoder> decoderFactory, Timer timer) {
+        return Mono.defer(() -> {
+            var decoder = decoderFactory.get();
+            long[] nanos = new long[1];
+            var items = body
+                .concatMapIterable(buffer -> {
+                    long start = System.nanoTime();
+                    try {
+                        return decoder.decode(buffer);
+                    } finally {
+                        nanos[0] += System.nanoTime() - start;
+                    }
+                })
+                .concatWith(Mono.<Item>fromRunnable(decoder::complete))
+                .takeUntil(item -> decoder.isDone())
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .collectList();
+            return timer == null ? items : items.doFinally(signal -> timer.record(nanos[0], TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Feeds the chunk to the parser and returns items which have been completed by it.
+     * The buffer is released.
+     */
+    public List<Item> decode(DataBuffer buffer) {
+        try {
+            if (isDone()) {
+                return List.of();
+            }
+            var bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return decode(bytes, 0, bytes.length);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Feeds the bytes to the parser and returns items which have been completed by them.
+     */
+    public List<Item> decode(byte[] bytes, int offset, int length) {
+        if (isDone()) {
+            return List.of();
+        }
+        try {
+            feeder.feedInput(bytes, offset, offset + length);
+            JsonToken token;
+            while (!isDone() && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                onToken(token);
+            }
+        } catch (IOException e) {
+            throw new DecodingException("Failed to decode upstream response", e);
+        }
+        var result = decoded;
+        decoded = new ArrayList<>();
+        return result;
+    }
+
+    /**
+     * Signals the end of the response. Fails if the response is incomplete and the limit is not reached yet.
+     */
+    public void complete() {
+        if (isDone()) {
+            return;
+        }
+        feeder.endOfInput();
+        if (!path.isEmpty()) {
+            throw new DecodingException("Upstream response is incomplete");
+        }
+    }
+
+    public boolean isDone() {
+        return count >= limit;
+    }
+
+    /**
+     * Called when an object is started.
+     */
+    protected void onStartObject(List<String> path) {
+    }
+
+    /**
+     * Called when a string value is read. {@code fieldName} is null for array elements.
+     */
+    protected void onString(List<String> path, String fieldName, String value) {
+    }
+
+    /**
+     * Called when an object is finished, before it's removed from the path.
+     */
+    protected void onEndObject(List<String> path) {
+    }
+
+    protected void emit(Item item) {
+        if (!isDone()) {
+            decoded.add(item);
+            count++;
+        }
+    }
+
+    /**
+     * Checks whether the path consists of exactly the given names.
+     */
+    protected static boolean isAt(List<String> path, String... names) {
+        if (path.size() != names.length) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        switch (token) {
+            case FIELD_NAME:
+                fieldName = parser.getCurrentName();
+                break;
+            case START_OBJECT:
+            case START_ARRAY:
+                path.add(containerName());
+                arrays.add(token == JsonToken.START_ARRAY);
+                fieldName = null;
+                if (token == JsonToken.START_OBJECT) {
+                    onStartObject(path);
+                }
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                if (token == JsonToken.END_OBJECT) {
+                    onEndObject(path);
+                }
+                path.remove(path.size() - 1);
+                arrays.remove(arrays.size() - 1);
+                fieldName = null;
+                break;
+            case VALUE_STRING:
+                onString(path, inArray() ? null : fieldName, parser.getText());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private String containerName() {
+        if (path.isEmpty()) {
+            return "";
+        }
+        return inArray() ? ELEMENT : fieldName;
+    }
+
+    private boolean inArray() {
+        return !arrays.isEmpty() && arrays.get(arrays.size() - 1);
+    }
+}
@@ -0,0 +1,124 @@
+package com.sbutterfly.recommendationservice.cluster;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Peers of the cluster and owners of queries.
+ */
+@Component
+public class ClusterPeers implements DisposableBean {
+    private final static Logger log = LoggerFactory.getLogger(ClusterPeers.class);
+
+    private final boolean enabled;
+    private final String self;
+    private final int virtualNodes;
+    private final Path peersFile;
+    private final Disposable refresh;
+    private volatile HashRing ring;
+    private long peersFileModified;
+
+    public ClusterPeers(@Value("${search.cluster.enabled:false}") boolean enabled,
+                        @Value("${search.cluster.self:}") String self,
+                        @Value("${search.cluster.peers:}") List<String> peers,
+                        @Value("${search.cluster.peers-file:}") String peersFile,
+                        @Value("${search.cluster.peers-file-refresh:10s}") Duration peersFileRefresh,
+                        @Value("${search.cluster.virtual-nodes:100}") int virtualNodes) {
+        this.enabled = enabled;
+        this.self = normalize(self);
+        this.virtualNodes = virtualNodes;
+        this.peersFile = enabled && !peersFile.isBlank() ? Path.of(peersFile) : null;
+        if (enabled && this.self.isEmpty()) {
+            throw new IllegalArgumentException("search.cluster.self is required in cluster mode");
+        }
+        if (this.peersFile != null) {
+            reload();
+            this.refresh = Flux.interval(peersFileRefresh, Schedulers.boundedElastic()).subscribe(tick -> reload());
+        } else {
+            update(peers);
+            this.refresh = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Url of the peer, which owns the query, or null if this instance owns it or cluster mode is disabled.
+     */
+    public String owner(String query) {
+        if (!enabled) {
+            return null;
+        }
+        var owner = ring.owner(SearchKey.normalize(query));
+        return owner == null || owner.equals(self) ? null : owner;
+    }
+
+    public boolean isOwner(String query) {
+        return owner(query) == null;
+    }
+
+    private void reload() {
+        try {
+            long modified = Files.getLastModifiedTime(peersFile).toMillis();
+            if (modified == peersFileModified) {
+                return;
+            }
+            var peers = Files.readAllLines(peersFile).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+            update(peers);
+            peersFileModified = modified;
+        } catch (IOException e) {
+            log.warn("Failed to read cluster peers from {}", peersFile, e);
+            if (ring == null) {
+                update(List.of());
+            }
+        }
+    }
+
+    private void update(List<String> peers) {
+        var normalized = new ArrayList<String>(peers.size());
+        for (var peer : peers) {
+            if (!normalize(peer).isEmpty()) {
+                normalized.add(normalize(peer));
+            }
+        }
+        if (enabled) {
+            if (!normalized.contains(self)) {
+                log.warn("Cluster peers {} don't include this instance {}, it won't own any query", normalized, self);
+            }
+            log.info("Cluster peers are {}", normalized);
+        }
+        ring = new HashRing(normalized, virtualNodes);
+    }
+
+    private static String normalize(String url) {
+        var trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    @Override
+    public void destroy() {
+        if (refresh != null) {
+            refresh.dispose();
+        }
+    }
+}
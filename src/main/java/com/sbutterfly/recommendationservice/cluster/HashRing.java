@@ -0,0 +1,63 @@
+package com.sbutterfly.recommendationservice.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hash ring of peers, so adding or removing a peer moves only its share of keys.
+ */
+public final class HashRing {
+    private final long[] points;
+    private final String[] owners;
+
+    public HashRing(List<String> peers, int virtualNodes) {
+        var sorted = peers.stream().distinct().sorted().toArray(String[]::new);
+        var entries = new long[sorted.length * virtualNodes][];
+        int n = 0;
+        for (int p = 0; p < sorted.length; p++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[n++] = new long[]{hash(sorted[p] + "#" + v), p};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[n];
+        this.owners = new String[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = entries[i][0];
+            owners[i] = sorted[(int) entries[i][1]];
+        }
+    }
+
+    /**
+     * Peer, which owns the key, or null if the ring is empty.
+     */
+    public String owner(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public boolean isEmpty() {
+        return points.length == 0;
+    }
+
+    /**
+     * 64-bit FNV-1a of UTF-8 bytes, followed by a SplitMix64 finalizer to spread similar keys over the ring.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
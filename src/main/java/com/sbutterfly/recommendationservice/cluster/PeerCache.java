@@ -0,0 +1,129 @@
+package com.sbutterfly.recommendationservice.cluster;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import com.sbutterfly.recommendationservice.config.UpstreamConnectors;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.tracing.TraceContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Fetches results of queries, which are owned by other peers, from their {@code /internal/cache} endpoint.
+ * If the owner is unreachable or too slow, the result is loaded locally and the owner is skipped
+ * for {@code search.cluster.retry-after}.
+ */
+@Component
+public class PeerCache {
+    private final static Logger log = LoggerFactory.getLogger(PeerCache.class);
+
+    private final ClusterPeers clusterPeers;
+    private final Environment environment;
+    private final WebClient client;
+    private final Duration deadline;
+    private final double timeoutShare;
+    private final Duration retryAfter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Long> unavailableUntil = new ConcurrentHashMap<>();
+
+    public PeerCache(ClusterPeers clusterPeers,
+                     Environment environment,
+                     WebClient.Builder webClientBuilder,
+                     UpstreamConnectors upstreamConnectors,
+                     @Value("${search.deadline:5s}") Duration deadline,
+                     @Value("${search.cluster.timeout-share:0.5}") double timeoutShare,
+                     @Value("${search.cluster.retry-after:10s}") Duration retryAfter,
+                     MeterRegistry meterRegistry) {
+        this.clusterPeers = clusterPeers;
+        this.environment = environment;
+        this.deadline = deadline;
+        this.timeoutShare = timeoutShare;
+        this.retryAfter = retryAfter;
+        this.meterRegistry = meterRegistry;
+        this.client = clusterPeers.isEnabled()
+            ? webClientBuilder
+                .clientConnector(upstreamConnectors.forProvider("peers"))
+                .filter(TraceContext.propagation())
+                .build()
+            : null;
+    }
+
+    /**
+     * Fetches the result from the owner of the query, or subscribes to {@code local} if this instance owns it,
+     * the owner is unavailable or cluster mode is disabled.
+     */
+    public Mono<List<Item>> get(String provider, String query, int limit, Supplier<Mono<List<Item>>> local) {
+        var owner = clusterPeers.owner(query);
+        if (owner == null) {
+            return local.get();
+        }
+        var until = unavailableUntil.get(owner);
+        if (until != null) {
+            if (System.nanoTime() - until < 0) {
+                counter(provider, "skipped").increment();
+                return local.get();
+            }
+            unavailableUntil.remove(owner, until);
+        }
+        return Mono.defer(() -> {
+            var answered = new AtomicBoolean();
+            return client.get()
+                .uri(owner + "/internal/cache/{provider}?query={query}&limit={limit}", provider, query, limit)
+                .retrieve()
+                .bodyToMono(Item[].class)
+                .map(List::of)
+                .timeout(timeout(provider))
+                .doOnNext(items -> {
+                    answered.set(true);
+                    counter(provider, "remote").increment();
+                })
+                .doOnCancel(() -> {
+                    if (!answered.get()) {
+                        markUnavailable(owner);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Peer {} failed to return {} search of {}, search locally", owner, provider, query, e);
+                    if (!(e instanceof WebClientResponseException) || ((WebClientResponseException) e).getRawStatusCode() >= 500) {
+                        markUnavailable(owner);
+                    }
+                    counter(provider, "fallback").increment();
+                    return Mono.defer(local);
+                });
+        });
+    }
+
+    private void markUnavailable(String owner) {
+        unavailableUntil.put(owner, System.nanoTime() + retryAfter.toNanos());
+    }
+
+    /**
+     * A share of the provider's time budget, so there is time left to search locally if the owner doesn't answer.
+     */
+    private Duration timeout(String provider) {
+        var timeout = environment.getProperty("search.providers." + provider + ".timeout", Duration.class, Duration.ofSeconds(5));
+        var budget = timeout.compareTo(deadline) < 0 ? timeout : deadline;
+        return Duration.ofNanos((long) (budget.toNanos() * timeoutShare));
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.cluster.requests")
+            .description("Searches of queries owned by other peers by provider and result (remote, fallback, skipped)")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package com.sbutterfly.recommendationservice.concurrency;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Sheds search requests over the adaptive concurrency limit with {@code 503 Service Unavailable} and {@code Retry-After}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitFilter implements WebFilter {
+    private final GradientLimiter limiter;
+    private final double batchShare;
+    private final String retryAfter;
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyLimitFilter(@Value("${search.concurrency.enabled:true}") boolean enabled,
+                                  @Value("${search.concurrency.initial-limit:50}") int initialLimit,
+                                  @Value("${search.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${search.concurrency.max-limit:500}") int maxLimit,
+                                  @Value("${search.concurrency.rtt-tolerance:1.5}") double rttTolerance,
+                                  @Value("${search.concurrency.smoothing:0.2}") double smoothing,
+                                  @Value("${search.concurrency.long-window:600}") int longWindow,
+                                  @Value("${search.concurrency.batch-share:0.5}") double batchShare,
+                                  @Value("${search.concurrency.retry-after:1s}") Duration retryAfter,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = enabled
+            ? new GradientLimiter(initialLimit, minLimit, maxLimit, rttTolerance, smoothing, longWindow, meterRegistry)
+            : null;
+        this.batchShare = batchShare;
+        this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var priority = limiter == null
+            ? Priority.UNLIMITED
+            : Priority.of(exchange.getRequest().getPath().pathWithinApplication().value());
+        if (priority == Priority.UNLIMITED) {
+            return chain.filter(exchange);
+        }
+        int inFlight = limiter.tryAcquire(priority == Priority.BATCH ? batchShare : 1);
+        if (inFlight == 0) {
+            shed(priority).increment();
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+            return response.setComplete();
+        }
+        long start = System.nanoTime();
+        var error = new Throwable[1];
+        return chain.filter(exchange)
+            .doOnError(e -> error[0] = e)
+            .doFinally(signal -> release(priority, signal, error[0], exchange, System.nanoTime() - start, inFlight));
+    }
+
+    /**
+     * Only completed requests adjust the limit by their latency. Server errors shrink it, client errors and
+     * cancelled or batch requests don't change it.
+     */
+    private void release(Priority priority, SignalType signal, Throwable error, ServerWebExchange exchange,
+                         long rttNanos, int inFlight) {
+        if (priority == Priority.BATCH || signal == SignalType.CANCEL) {
+            limiter.onIgnored();
+        } else if (signal == SignalType.ON_ERROR) {
+            if (error instanceof ResponseStatusException && ((ResponseStatusException) error).getRawStatusCode() < 500) {
+                limiter.onIgnored();
+            } else {
+                limiter.onDropped();
+            }
+        } else {
+            var status = exchange.getResponse().getRawStatusCode();
+            if (status != null && status >= 500) {
+                limiter.onDropped();
+            } else {
+                limiter.onSample(rttNanos, inFlight);
+            }
+        }
+    }
+
+    private Counter shed(Priority priority) {
+        return Counter.builder("search.concurrency.shed")
+            .description("Requests rejected by the concurrency limit by priority (normal, batch)")
+            .tag("priority", priority.name().toLowerCase())
+            .register(meterRegistry);
+    }
+
+    enum Priority {
+        UNLIMITED,
+        NORMAL,
+        BATCH;
+
+        static Priority of(String path) {
+            if (path.startsWith("/search/batch")) {
+                return BATCH;
+            }
+            if (path.startsWith("/search")) {
+                return NORMAL;
+            }
+            return UNLIMITED;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sbutterfly.recommendationservice.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Adaptive limit of concurrent requests, which grows while their latency stays close to its long-term average
+ * and shrinks when requests queue up.
+ */
+public class GradientLimiter {
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final int longWindow;
+
+    private double limit;
+    private double longRtt = -1;
+    private int inFlight;
+
+    /**
+     * @param initialLimit  limit before any request has completed
+     * @param minLimit      the limit never gets lower
+     * @param maxLimit      the limit never gets higher
+     * @param rttTolerance  ratio of recent to long-term latency, which is still considered as no queueing
+     * @param smoothing     share (0..1] of every new estimate, which is applied to the limit
+     * @param longWindow    number of samples averaged by the long-term latency
+     * @param meterRegistry registry for limit and in-flight gauges
+     */
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+                           int longWindow, MeterRegistry meterRegistry) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longWindow = Math.max(1, longWindow);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+
+        Gauge.builder("search.concurrency.limit", this, GradientLimiter::limit)
+            .description("Current limit of concurrent search requests")
+            .register(meterRegistry);
+        Gauge.builder("search.concurrency.in-flight", this, GradientLimiter::inFlight)
+            .description("Search requests in flight")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes a slot if less than {@code share} of the limit is in use.
+     *
+     * @return the number of requests in flight including this one, or 0 if the request should be rejected
+     */
+    public synchronized int tryAcquire(double share) {
+        if (inFlight >= Math.max(1, (int) (limit * share))) {
+            return 0;
+        }
+        return ++inFlight;
+    }
+
+    /**
+     * Releases the slot of a successful request and adjusts the limit by its latency.
+     *
+     * @param inFlightAtStart result of {@link #tryAcquire(double)} of the request
+     */
+    public synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        inFlight--;
+        if (rttNanos <= 0 || inFlightAtStart * 2 < limit) {
+            return;
+        }
+        longRtt = longRtt < 0 ? rttNanos : longRtt + (rttNanos - longRtt) / longWindow;
+        if (longRtt > 2 * rttNanos) {
+            // latency has dropped, e.g. after an upstream recovered, let the long-term average catch up faster
+            longRtt *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / rttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - smoothing) + estimate * smoothing);
+    }
+
+    /**
+     * Releases the slot of a failed request and shrinks the limit.
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        update(limit * BACKOFF);
+    }
+
+    /**
+     * Releases the slot of a request, which says nothing about the latency, e.g. a cancelled one.
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    private void update(double estimate) {
+        limit = Math.max(minLimit, Math.min(maxLimit, estimate));
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sbutterfly.recommendationservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.metrics.TimedJsonEncoder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Replaces the json encoder to record {@code serialize} stage of responses.
+     * It runs after Spring Boot's customizer, which registers the default encoder.
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CodecCustomizer timedJsonEncoderCustomizer(ObjectMapper mapper, SearchMetrics searchMetrics) {
+        return configurer -> configurer.defaultCodecs()
+            .jackson2JsonEncoder(new TimedJsonEncoder(mapper, searchMetrics.timer("serialize", SearchMetrics.ALL)));
+    }
+}
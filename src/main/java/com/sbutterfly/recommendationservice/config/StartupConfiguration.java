@@ -0,0 +1,17 @@
+package com.sbutterfly.recommendationservice.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    /**
+     * Keeps beans of the service eager with {@code spring.main.lazy-initialization}, as the first search needs them anyway.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerServiceComponents() {
+        return (beanName, beanDefinition, beanType) -> beanType.getName().startsWith("com.sbutterfly.recommendationservice.");
+    }
+}
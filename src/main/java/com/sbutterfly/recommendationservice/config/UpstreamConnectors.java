@@ -0,0 +1,89 @@
+package com.sbutterfly.recommendationservice.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.context.Context;
+
+/**
+ * Creates a dedicated connection pool and http client for every upstream service,
+ * so a slow upstream can't exhaust connections of the others.
+ */
+@Component
+public class UpstreamConnectors implements DisposableBean {
+    private static final String EXCHANGE_START = UpstreamConnectors.class.getName() + ".exchangeStart";
+
+    private final Environment environment;
+    private final SearchMetrics searchMetrics;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public UpstreamConnectors(Environment environment, SearchMetrics searchMetrics) {
+        this.environment = environment;
+        this.searchMetrics = searchMetrics;
+    }
+
+    public ClientHttpConnector forProvider(String provider) {
+        var connectionProvider = ConnectionProvider.builder("upstream-" + provider)
+            .maxConnections(property(provider, "max-connections", Integer.class, 100))
+            .pendingAcquireMaxCount(property(provider, "pending-acquire-max-count", Integer.class, 200))
+            .pendingAcquireTimeout(property(provider, "pending-acquire-timeout", Duration.class, Duration.ofSeconds(1)))
+            .maxIdleTime(property(provider, "max-idle-time", Duration.class, Duration.ofSeconds(30)))
+            .maxLifeTime(property(provider, "max-life-time", Duration.class, Duration.ofMinutes(5)))
+            .evictInBackground(property(provider, "evict-in-background", Duration.class, Duration.ofSeconds(30)))
+            .metrics(true)
+            .build();
+        connectionProviders.add(connectionProvider);
+
+        var connectTimer = searchMetrics.timer("connect", provider);
+        var connectTimeout = property(provider, "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        var dnsTtl = property(provider, "dns-cache-ttl", Duration.class, Duration.ofMinutes(1));
+        var httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .keepAlive(property(provider, "keep-alive", Boolean.class, true))
+            .compress(property(provider, "compression", Boolean.class, true))
+            .resolver(spec -> spec
+                .cacheMaxTimeToLive(dnsTtl)
+                .cacheNegativeTimeToLive(Duration.ofSeconds(5)))
+            .metrics(true, UpstreamConnectors::withoutQuery)
+            .doOnRequest((request, connection) -> request.currentContextView().<Long>getOrEmpty(EXCHANGE_START)
+                .ifPresent(start -> connectTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS)));
+        if (property(provider, "http2", Boolean.class, false)) {
+            // HTTP/2 is negotiated by ALPN, and the client falls back to HTTP/1.1 if the upstream doesn't support it
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        var connector = new ReactorClientHttpConnector(httpClient);
+        return (method, uri, requestCallback) -> Mono.defer(() -> connector.connect(method, uri, requestCallback)
+            .contextWrite(Context.of(EXCHANGE_START, System.nanoTime())));
+    }
+
+    @Override
+    public void destroy() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    /**
+     * Reads {@code search.http.<provider>.<property>} falling back to {@code search.http.<property>}.
+     */
+    private <T> T property(String provider, String property, Class<T> type, T defaultValue) {
+        var value = environment.getProperty("search.http." + provider + "." + property, type);
+        return value != null ? value : environment.getProperty("search.http." + property, type, defaultValue);
+    }
+
+    private static String withoutQuery(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sbutterfly.recommendationservice.controllers;
+
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.search.SearchAggregator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Results of queries owned by this instance for other peers of the cluster.
+ */
+@RestController
+@RequestMapping("/internal/cache")
+@ConditionalOnProperty(name = "search.cluster.enabled", havingValue = "true")
+public class ClusterController {
+    private final SearchAggregator searchAggregator;
+
+    public ClusterController(SearchAggregator searchAggregator) {
+        this.searchAggregator = searchAggregator;
+    }
+
+    @GetMapping("/{provider}")
+    public Mono<List<Item>> search(@PathVariable String provider, @RequestParam String query, @RequestParam int limit) {
+        Mono<List<Item>> items;
+        try {
+            items = searchAggregator.searchOwned(provider, query, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return items.onErrorMap(e -> !(e instanceof ResponseStatusException),
+            e -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, provider + " search failed", e));
+    }
+}
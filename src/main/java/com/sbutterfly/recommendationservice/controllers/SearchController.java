@@ -1,62 +1,121 @@
 package com.sbutterfly.recommendationservice.controllers;
 
-import java.time.Duration;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import com.sbutterfly.recommendationservice.clients.GoogleBooksClient;
-import com.sbutterfly.recommendationservice.clients.ItunesClient;
-import com.sbutterfly.recommendationservice.pojo.Item;
-import com.sbutterfly.recommendationservice.pojo.SearchResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.BatchSearchResponse;
+import com.sbutterfly.recommendationservice.pojo.SearchEvent;
+import com.sbutterfly.recommendationservice.popular.PopularQueries;
+import com.sbutterfly.recommendationservice.search.Cursor;
+import com.sbutterfly.recommendationservice.search.EncodedResponse;
+import com.sbutterfly.recommendationservice.search.EncodedResponses;
+import com.sbutterfly.recommendationservice.search.ResponseMerger;
+import com.sbutterfly.recommendationservice.search.SearchAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/search")
 public class SearchController {
-    private final static Logger log = LoggerFactory.getLogger(SearchController.class);
-
-    private final ItunesClient itunesClient;
-    private final GoogleBooksClient googleBooksClient;
+    private final SearchAggregator searchAggregator;
+    private final ResponseMerger responseMerger;
+    private final EncodedResponses encodedResponses;
+    private final PopularQueries popularQueries;
+    private final int maxBatchSize;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public SearchController(ItunesClient itunesClient, GoogleBooksClient googleBooksClient) {
-        this.itunesClient = itunesClient;
-        this.googleBooksClient = googleBooksClient;
+    public SearchController(SearchAggregator searchAggregator,
+                            ResponseMerger responseMerger,
+                            EncodedResponses encodedResponses,
+                            PopularQueries popularQueries,
+                            @Value("${search.batch.max-size:10000}") int maxBatchSize,
+                            @Value("${search.pagination.default-page-size:10}") int defaultPageSize,
+                            @Value("${search.pagination.max-page-size:100}") int maxPageSize) {
+        this.searchAggregator = searchAggregator;
+        this.responseMerger = responseMerger;
+        this.encodedResponses = encodedResponses;
+        this.popularQueries = popularQueries;
+        this.maxBatchSize = maxBatchSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
+
+    /**
+     * Items are sorted by {@code sort}. If {@code pageSize} or {@code cursor} is given, a page of items is returned
+     * with {@code nextCursor} of the next page.
+     */
     @GetMapping
-    public Mono<SearchResponse> search(@RequestParam String name) {
-        var albumsFlux = itunesClient.search(name)
-            .timeout(Duration.ofSeconds(5))
-            .doOnNext(items -> log.debug("Got {} items from itunes search", items.size()))
-            .doOnError(e -> log.warn("iTunes search throw an error", e))
-            .map(SearchResponse::new)
-            .onErrorReturn(new SearchResponse("iTunes search is unavailable"));
-
-        var booksFlux = googleBooksClient.search(name)
-            .timeout(Duration.ofSeconds(5))
-            .doOnNext(items -> log.debug("Got {} items from google books search", items.size()))
-            .doOnError(e -> log.warn("Google books search throw an error", e))
-            .map(SearchResponse::new)
-            .onErrorReturn(new SearchResponse("Google books search is unavailable"));
-
-        return albumsFlux.zipWith(booksFlux, this::merge);
+    public Mono<ResponseEntity<DataBuffer>> search(@RequestParam String name,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(required = false) Integer pageSize,
+                                                   @RequestParam(required = false) String cursor,
+                                                   ServerWebExchange exchange) {
+        if (sort != null && !responseMerger.sorts().contains(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort " + sort + ", available sorts are " + responseMerger.sorts());
+        }
+        if (cursor == null) {
+            popularQueries.record(name);
+        }
+        if (pageSize == null && cursor == null) {
+            return searchAggregator.searchEncoded(name, sort)
+                .map(response -> respond(response, exchange));
+        }
+        int size = pageSize == null ? defaultPageSize : pageSize;
+        if (size <= 0 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + maxPageSize);
+        }
+        Cursor position;
+        try {
+            position = cursor == null ? null : Cursor.parse(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return searchAggregator.searchPage(name, sort, size, position)
+            .map(page -> respond(encodedResponses.encode(page), exchange));
+    }
+
+    /**
+     * Streaming variant of search, which writes items of each provider as soon as it answers.
+     */
+    @GetMapping(path = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<SearchEvent> stream(@RequestParam String name) {
+        return searchAggregator.stream(name);
+    }
+
+    /**
+     * The body wraps the encoded json without copying it. Not modified responses have no body.
+     */
+    private static ResponseEntity<DataBuffer> respond(EncodedResponse response, ServerWebExchange exchange) {
+        if (exchange.checkNotModified(response.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.getETag()).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(response.getETag())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(response.toDataBuffer(exchange.getResponse().bufferFactory()));
     }
 
-    private SearchResponse merge(SearchResponse response1, SearchResponse response2) {
-        var error = Stream.of(response1.getErrorMessage(), response2.getErrorMessage())
-            .filter(v -> !v.isEmpty())
-            .collect(Collectors.joining("; "));
-        var items = Stream.of(response1.getItems(), response2.getItems())
-            .flatMap(Collection::stream)
-            .sorted(Comparator.comparing(Item::getTitle))
-            .collect(Collectors.toList());
-        return new SearchResponse(error, items);
+    /**
+     * Searches a json array of names and writes a response for each of them as soon as it's ready.
+     */
+    @PostMapping(path = "/batch", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<BatchSearchResponse> batch(@RequestBody List<String> names) {
+        if (names.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch is limited by " + maxBatchSize + " names");
+        }
+        return searchAggregator.searchBatch(names);
     }
 }
@@ -0,0 +1,35 @@
+package com.sbutterfly.recommendationservice.controllers;
+
+import com.sbutterfly.recommendationservice.pojo.SuggestResponse;
+import com.sbutterfly.recommendationservice.suggest.Suggestions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Autocomplete of titles and authors, served from the local index without calling upstream services.
+ */
+@RestController
+@RequestMapping("/suggest")
+public class SuggestController {
+    private final Suggestions suggestions;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public SuggestController(Suggestions suggestions,
+                             @Value("${search.suggest.limit:10}") int defaultLimit,
+                             @Value("${search.suggest.max-limit:100}") int maxLimit) {
+        this.suggestions = suggestions;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @GetMapping
+    public Mono<SuggestResponse> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        int effectiveLimit = Math.min(limit == null ? defaultLimit : limit, maxLimit);
+        return Mono.fromSupplier(() -> new SuggestResponse(suggestions.suggest(prefix, effectiveLimit)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.sbutterfly.recommendationservice.dedup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.ItemPage;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Removes different editions of the same work, identified by {@link ItemKey}.
+ */
+@Component
+public class Deduplicator {
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public Deduplicator(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Fetches pages until there are {@code limit} unique items, the upstream has no more items or max pages are fetched.
+     * Failure of any page but the first one ends fetching with the items found so far.
+     *
+     * @param maxPageSize max number of items, which the upstream returns in one response
+     * @param fetchPage   fetches a page by offset and size
+     */
+    public Mono<List<Item>> fill(String provider, int limit, int maxPageSize,
+                                 BiFunction<Integer, Integer, Mono<List<Item>>> fetchPage) {
+        return fillPage(provider, 0, limit, maxPageSize, fetchPage).map(ItemPage::getItems);
+    }
+
+    /**
+     * Same as {@link #fill}, but starts at the upstream offset and returns the offset of the first item, which wasn't used.
+     */
+    public Mono<ItemPage> fillPage(String provider, int offset, int limit, int maxPageSize,
+                                   BiFunction<Integer, Integer, Mono<List<Item>>> fetchPage) {
+        if (!property(provider, "enabled", Boolean.class, true)) {
+            return fetchPage.apply(offset, limit)
+                .map(items -> new ItemPage(items, items.size() < limit ? -1 : offset + items.size()));
+        }
+        int pageSize = (int) Math.min(maxPageSize, Math.ceil(limit * property(provider, "overfetch", Double.class, 1.0)));
+        int maxPages = property(provider, "max-pages", Integer.class, 2);
+        return Mono.defer(() -> {
+            var seen = new HashSet<Long>();
+            var unique = new ArrayList<Item>(limit);
+            int[] duplicates = new int[1];
+            // offset of the first item which wasn't looked at, or -1 when the upstream has no more items
+            int[] nextOffset = {offset};
+            return Flux.range(0, maxPages)
+                .concatMap(page -> page == 0
+                    ? fetchPage.apply(offset, pageSize)
+                    : Mono.defer(() -> unique.size() < limit && nextOffset[0] >= 0
+                        ? fetchPage.apply(offset + page * pageSize, pageSize).onErrorResume(e -> Mono.empty())
+                        : Mono.empty()))
+                .takeUntil(items -> {
+                    int i = 0;
+                    for (; i < items.size() && unique.size() < limit; i++) {
+                        if (seen.add(ItemKey.of(items.get(i)))) {
+                            unique.add(items.get(i));
+                        } else {
+                            duplicates[0]++;
+                        }
+                    }
+                    boolean last = items.size() < pageSize;
+                    nextOffset[0] = last && i == items.size() ? -1 : nextOffset[0] + i;
+                    return unique.size() == limit || last;
+                })
+                .then(Mono.fromSupplier(() -> {
+                    counter(provider, "unique").increment(unique.size());
+                    counter(provider, "duplicate").increment(duplicates[0]);
+                    return new ItemPage(unique, nextOffset[0]);
+                }));
+        });
+    }
+
+    /**
+     * Removes items, which were already returned by a preceding provider.
+     */
+    public List<SearchResponse> distinct(List<SearchResponse> responses) {
+        if (!environment.getProperty("search.dedup.enabled", Boolean.class, true)) {
+            return responses;
+        }
+        Set<Long> seen = new HashSet<>();
+        var result = new ArrayList<SearchResponse>(responses.size());
+        int duplicates = 0;
+        int unique = 0;
+        for (var response : responses) {
+            var items = new ArrayList<Item>(response.getItems().size());
+            for (var item : response.getItems()) {
+                if (seen.add(ItemKey.of(item))) {
+                    items.add(item);
+                } else {
+                    duplicates++;
+                }
+            }
+            unique += items.size();
+            result.add(items.size() == response.getItems().size() ? response : new SearchResponse(response.getErrorMessage(), items));
+        }
+        counter("merged", "unique").increment(unique);
+        counter("merged", "duplicate").increment(duplicates);
+        return result;
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.dedup.items")
+            .description("Items by provider and result (unique, duplicate) of deduplication")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Reads {@code search.dedup.<provider>.<property>} falling back to {@code search.dedup.<property>}.
+     */
+    private <T> T property(String provider, String property, Class<T> type, T defaultValue) {
+        var value = environment.getProperty("search.dedup." + provider + "." + property, type);
+        return value != null ? value : environment.getProperty("search.dedup." + property, type, defaultValue);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sbutterfly.recommendationservice.dedup;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+
+/**
+ * Canonical 64-bit hash of an item's title and authors, equal for different editions of the same work.
+ * <p>
+ * Text is read in a single pass without building intermediate strings: letters are case folded and stripped
+ * of diacritics, '&amp;' is read as "and", other punctuation only separates words, and qualifiers of a title -
+ * parts in parentheses or brackets, or after a colon or a dash - are skipped if they contain an edition word,
+ * e.g. "(Deluxe Edition)", "[2011 Remaster]" or " - Single".
+ */
+public final class ItemKey {
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final long AND = wordHash("and");
+    private static final long[] EDITION_WORDS = Stream.of(
+            "edition", "remaster", "remastered", "deluxe", "expanded", "anniversary", "reissue", "bonus",
+            "version", "single", "ep", "special", "collector", "collectors", "abridged", "unabridged", "illustrated")
+        .mapToLong(ItemKey::wordHash)
+        .sorted()
+        .toArray();
+    /**
+     * Lower-cased base letters of Latin-1 and Latin Extended characters, e.g. 'É' is folded to 'e'.
+     */
+    private static final char[] FOLDED = new char[0x250];
+
+    static {
+        for (char c = 0; c < FOLDED.length; c++) {
+            var decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            FOLDED[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+    }
+
+    private ItemKey() {
+    }
+
+    public static long of(Item item) {
+        return hash(item.getTitle(), true) * 31 + hash(item.getAuthors(), false);
+    }
+
+    /**
+     * Hashes words of the text, skipping qualifiers with edition words if {@code stripQualifiers} is set.
+     */
+    static long hash(String text, boolean stripQualifiers) {
+        if (text == null) {
+            return 0;
+        }
+        long main = OFFSET;
+        long qualifier = OFFSET;
+        boolean inQualifier = false;
+        boolean edition = false;
+        long word = OFFSET;
+        int wordLength = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? fold(text.charAt(i)) : ' ';
+            if (c == 0) {
+                // combining mark
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                word = (word ^ c) * PRIME;
+                wordLength++;
+                continue;
+            }
+            if (c == '&' && wordLength > 0) {
+                // end the word first and read '&' again, e.g. "Rock&Roll" is "rock and roll"
+                c = ' ';
+                i--;
+            } else if (c == '&') {
+                word = AND;
+                wordLength = 3;
+            }
+            if (wordLength > 0) {
+                if (inQualifier) {
+                    qualifier = (qualifier ^ word) * PRIME;
+                    edition |= Arrays.binarySearch(EDITION_WORDS, word) >= 0;
+                } else {
+                    main = (main ^ word) * PRIME;
+                }
+                word = OFFSET;
+                wordLength = 0;
+            }
+            if (!stripQualifiers) {
+                continue;
+            }
+            boolean opens = c == '(' || c == '[' || c == ':' || isDash(text, i);
+            boolean closes = c == ')' || c == ']' || i == text.length();
+            if (opens || closes) {
+                if (inQualifier && !edition && qualifier != OFFSET) {
+                    main = (main ^ qualifier) * PRIME;
+                }
+                qualifier = OFFSET;
+                edition = false;
+                inQualifier = opens;
+            }
+        }
+        return main;
+    }
+
+    private static char fold(char c) {
+        if (c < FOLDED.length) {
+            return FOLDED[c];
+        }
+        if (Character.getType(c) == Character.NON_SPACING_MARK) {
+            return 0;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    /**
+     * A dash separated by spaces, e.g. "Breathless - Single".
+     */
+    private static boolean isDash(String text, int i) {
+        if (i == 0 || i + 1 >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(i);
+        return (c == '-' || c == '–' || c == '—') && text.charAt(i - 1) == ' ' && text.charAt(i + 1) == ' ';
+    }
+
+    private static long wordHash(String word) {
+        long hash = OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            hash = (hash ^ word.charAt(i)) * PRIME;
+        }
+        return hash;
+    }
+}
@@ -1,7 +1,5 @@
 package com.sbutterfly.recommendationservice.health;
 
-import java.time.Duration;
-
 import com.sbutterfly.recommendationservice.clients.GoogleBooksClient;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
@@ -11,16 +9,15 @@ import reactor.core.publisher.Mono;
 @Component
 public class GoogleBooksHealthIndicator implements ReactiveHealthIndicator {
     private final GoogleBooksClient googleBooksClient;
+    private final UpstreamHealth upstreamHealth;
 
-    public GoogleBooksHealthIndicator(GoogleBooksClient googleBooksClient) {
+    public GoogleBooksHealthIndicator(GoogleBooksClient googleBooksClient, UpstreamHealth upstreamHealth) {
         this.googleBooksClient = googleBooksClient;
+        this.upstreamHealth = upstreamHealth;
     }
 
     @Override
     public Mono<Health> health() {
-        return googleBooksClient.search("To kill a mockingbird")
-            .timeout(Duration.ofSeconds(5))
-            .map(a -> new Health.Builder().up().build())
-            .onErrorResume(ex -> Mono.just(new Health.Builder().down(ex).build()));
+        return upstreamHealth.health(googleBooksClient, "To kill a mockingbird");
     }
 }
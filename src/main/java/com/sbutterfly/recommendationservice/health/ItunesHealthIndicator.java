@@ -1,7 +1,5 @@
 package com.sbutterfly.recommendationservice.health;
 
-import java.time.Duration;
-
 import com.sbutterfly.recommendationservice.clients.ItunesClient;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
@@ -11,16 +9,15 @@ import reactor.core.publisher.Mono;
 @Component
 public class ItunesHealthIndicator implements ReactiveHealthIndicator {
     private final ItunesClient itunesClient;
+    private final UpstreamHealth upstreamHealth;
 
-    public ItunesHealthIndicator(ItunesClient itunesClient) {
+    public ItunesHealthIndicator(ItunesClient itunesClient, UpstreamHealth upstreamHealth) {
         this.itunesClient = itunesClient;
+        this.upstreamHealth = upstreamHealth;
     }
 
     @Override
     public Mono<Health> health() {
-        return itunesClient.search("Queen")
-            .timeout(Duration.ofSeconds(5))
-            .map(a -> new Health.Builder().up().build())
-            .onErrorResume(ex -> Mono.just(new Health.Builder().down(ex).build()));
+        return upstreamHealth.health(itunesClient, "Queen");
     }
 }
@@ -0,0 +1,132 @@
+package com.sbutterfly.recommendationservice.health;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+import com.sbutterfly.recommendationservice.ratelimit.RateLimitExceededException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rolling error rate and latency percentiles of the latest upstream calls.
+ */
+public class TrafficStats {
+    private final Duration window;
+    private final LongSupplier clock;
+    private final long[] timestamps;
+    private final long[] latencies;
+    private final boolean[] failures;
+    private int next;
+    private int size;
+    private long lastSuccess = -1;
+
+    /**
+     * @param capacity max number of calls kept
+     * @param window   calls older than that are ignored
+     * @param clock    epoch millis
+     */
+    public TrafficStats(int capacity, Duration window, LongSupplier clock) {
+        this.window = window;
+        this.clock = clock;
+        this.timestamps = new long[capacity];
+        this.latencies = new long[capacity];
+        this.failures = new boolean[capacity];
+    }
+
+    public <T> Mono<T> record(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> record(System.nanoTime() - start, true))
+                .doOnError(e -> {
+                    if (!(e instanceof RateLimitExceededException)) {
+                        record(System.nanoTime() - start, false);
+                    }
+                });
+        });
+    }
+
+    public synchronized void record(long latencyNanos, boolean success) {
+        long now = clock.getAsLong();
+        timestamps[next] = now;
+        latencies[next] = latencyNanos;
+        failures[next] = !success;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+        if (success) {
+            lastSuccess = now;
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = clock.getAsLong();
+        var recent = new long[size];
+        int calls = 0;
+        int failed = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - timestamps[i] <= window.toMillis()) {
+                recent[calls++] = latencies[i];
+                if (failures[i]) {
+                    failed++;
+                }
+            }
+        }
+        Arrays.sort(recent, 0, calls);
+        return new Snapshot(
+            calls,
+            calls == 0 ? 0 : (double) failed / calls,
+            Duration.ofNanos(percentile(recent, calls, 0.5)),
+            Duration.ofNanos(percentile(recent, calls, 0.99)),
+            lastSuccess < 0 ? null : Duration.ofMillis(now - lastSuccess)
+        );
+    }
+
+    private static long percentile(long[] sorted, int length, double percentile) {
+        if (length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(percentile * length) - 1)];
+    }
+
+    public static class Snapshot {
+        private final int calls;
+        private final double errorRate;
+        private final Duration latencyP50;
+        private final Duration latencyP99;
+        private final Duration sinceLastSuccess;
+
+        private Snapshot(int calls, double errorRate, Duration latencyP50, Duration latencyP99, Duration sinceLastSuccess) {
+            this.calls = calls;
+            this.errorRate = errorRate;
+            this.latencyP50 = latencyP50;
+            this.latencyP99 = latencyP99;
+            this.sinceLastSuccess = sinceLastSuccess;
+        }
+
+        /**
+         * Number of calls within the window.
+         */
+        public int getCalls() {
+            return calls;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public Duration getLatencyP50() {
+            return latencyP50;
+        }
+
+        public Duration getLatencyP99() {
+            return latencyP99;
+        }
+
+        /**
+         * Time since the last successful call, even if it's outside the window, or null if there were no successful calls.
+         */
+        public Duration getSinceLastSuccess() {
+            return sinceLastSuccess;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sbutterfly.recommendationservice.health;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sbutterfly.recommendationservice.clients.SearchProvider;
+import com.sbutterfly.recommendationservice.resilience.CircuitBreaker;
+import com.sbutterfly.recommendationservice.resilience.ResiliencePolicies;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Health of upstream services derived from the traffic they already serve.
+ * A search is sent as a probe only when traffic is idle.
+ */
+@Component
+public class UpstreamHealth {
+    private final Environment environment;
+    private final ResiliencePolicies resiliencePolicies;
+    private final Map<String, TrafficStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Mono<Health>> probes = new ConcurrentHashMap<>();
+
+    public UpstreamHealth(Environment environment, ResiliencePolicies resiliencePolicies) {
+        this.environment = environment;
+        this.resiliencePolicies = resiliencePolicies;
+    }
+
+    public TrafficStats forProvider(String provider) {
+        return stats.computeIfAbsent(provider, name -> new TrafficStats(
+            property(name, "window-calls", Integer.class, 256),
+            property(name, "window", Duration.class, Duration.ofMinutes(1)),
+            System::currentTimeMillis
+        ));
+    }
+
+    public Mono<Health> health(SearchProvider provider, String probeQuery) {
+        var name = provider.getName();
+        var circuitBreaker = resiliencePolicies.circuitBreaker(name);
+        if (circuitBreaker != null && circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return Mono.just(new Health.Builder().down().withDetail("circuitBreaker", CircuitBreaker.State.OPEN).build());
+        }
+
+        var snapshot = forProvider(name).snapshot();
+        Mono<Health.Builder> health;
+        if (snapshot.getCalls() >= property(name, "minimum-calls", Integer.class, 5)) {
+            var builder = snapshot.getErrorRate() > property(name, "error-rate-threshold", Double.class, 0.5)
+                ? new Health.Builder().down()
+                : new Health.Builder().up();
+            health = Mono.just(builder.withDetail("source", "traffic"));
+        } else {
+            health = probe(provider, probeQuery)
+                .map(probe -> new Health.Builder().status(probe.getStatus()).withDetails(probe.getDetails()));
+        }
+        return health.map(builder -> {
+            builder
+                .withDetail("calls", snapshot.getCalls())
+                .withDetail("errorRate", snapshot.getErrorRate())
+                .withDetail("latencyP50Ms", snapshot.getLatencyP50().toMillis())
+                .withDetail("latencyP99Ms", snapshot.getLatencyP99().toMillis());
+            if (snapshot.getSinceLastSuccess() != null) {
+                builder.withDetail("sinceLastSuccessMs", snapshot.getSinceLastSuccess().toMillis());
+            }
+            if (circuitBreaker != null) {
+                builder.withDetail("circuitBreaker", circuitBreaker.getState());
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Searches the probe query, the result is shared by concurrent health checks and cached for the probe TTL.
+     */
+    private Mono<Health> probe(SearchProvider provider, String query) {
+        return probes.computeIfAbsent(provider.getName(), name -> provider.probe(query)
+            .timeout(property(name, "probe-timeout", Duration.class, Duration.ofSeconds(5)))
+            .map(items -> new Health.Builder().up().withDetail("source", "probe").build())
+            .onErrorResume(e -> Mono.just(new Health.Builder().down(e).withDetail("source", "probe").build()))
+            .cache(
+                health -> property(name, "probe-ttl", Duration.class, Duration.ofMinutes(1)),
+                e -> Duration.ZERO,
+                () -> Duration.ZERO
+            ));
+    }
+
+    /**
+     * Reads {@code search.health.<provider>.<property>} falling back to {@code search.health.<property>}.
+     */
+    private <T> T property(String provider, String property, Class<T> type, T defaultValue) {
+        var value = environment.getProperty("search.health." + provider + "." + property, type);
+        return value != null ? value : environment.getProperty("search.health." + property, type, defaultValue);
+    }
+}
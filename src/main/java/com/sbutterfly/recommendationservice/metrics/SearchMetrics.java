@@ -0,0 +1,100 @@
+package com.sbutterfly.recommendationservice.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.sbutterfly.recommendationservice.ratelimit.RateLimitExceededException;
+import com.sbutterfly.recommendationservice.resilience.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Latency of every stage of a search ({@code search.stage} timer) and outcomes of provider calls
+ * ({@code search.upstream.outcomes} counter).
+ */
+@Component
+public class SearchMetrics {
+    public static final String ALL = "all";
+
+    private final MeterRegistry meterRegistry;
+
+    public SearchMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer timer(String stage, String provider) {
+        return Timer.builder("search.stage")
+            .description("Latency of search stages")
+            .tag("stage", stage)
+            .tag("provider", provider)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Times the stage from subscription until the mono terminates or is cancelled.
+     */
+    public <T> Mono<T> time(String stage, String provider, Mono<T> mono) {
+        var timer = timer(stage, provider);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return mono.doFinally(signal -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Times a synchronous stage, which is not specific to a provider.
+     */
+    public <T> T time(String stage, Supplier<T> supplier) {
+        return timer(stage, ALL).record(supplier);
+    }
+
+    /**
+     * Times the upstream call and counts its outcome.
+     */
+    public <T> Mono<T> upstream(String provider, Mono<T> call) {
+        return time("upstream", provider, call
+            .doOnSuccess(value -> counter(provider, "success").increment())
+            .doOnError(e -> counter(provider, outcome(e)).increment())
+            .doOnCancel(() -> counter(provider, "cancelled").increment()));
+    }
+
+    /**
+     * Outcome of a failed call: {@code timeout}, {@code 4xx}, {@code 5xx}, {@code decode_error},
+     * {@code rejected} by the rate limiter or the circuit breaker, or any other {@code error}.
+     */
+    static String outcome(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (e instanceof WebClientResponseException) {
+            var status = ((WebClientResponseException) e).getRawStatusCode();
+            if (status >= 400 && status < 500) {
+                return "4xx";
+            }
+            if (status >= 500) {
+                return "5xx";
+            }
+        }
+        if (e instanceof DecodingException) {
+            return "decode_error";
+        }
+        if (e instanceof RateLimitExceededException || e instanceof CallNotPermittedException) {
+            return "rejected";
+        }
+        return "error";
+    }
+
+    private Counter counter(String provider, String outcome) {
+        return Counter.builder("search.upstream.outcomes")
+            .description("Upstream calls by provider and outcome (success, timeout, 4xx, 5xx, decode_error, rejected, error, cancelled)")
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.sbutterfly.recommendationservice.pojo;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Search response for a single name of a batch.
+ * The name is normalized: lower-cased and with collapsed whitespace.
+ */
+public class BatchSearchResponse {
+    private final String name;
+    private final String errorMessage;
+    private final List<Item> items;
+
+    public BatchSearchResponse(String name, SearchResponse response) {
+        this.name = Objects.requireNonNull(name);
+        this.errorMessage = response.getErrorMessage();
+        this.items = response.getItems();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchSearchResponse{" +
+            "name='" + name + '\'' +
+            ", errorMessage='" + errorMessage + '\'' +
+            ", items=" + items +
+            '}';
+    }
+}
@@ -1,11 +1,17 @@
 package com.sbutterfly.recommendationservice.pojo;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 public class Item {
     private final String title;
     private final String authors;
     private final Type type;
 
-    public Item(String title, String authors, Type type) {
+    @JsonCreator
+    public Item(@JsonProperty("title") String title,
+                @JsonProperty("authors") String authors,
+                @JsonProperty("type") Type type) {
         this.title = title;
         this.authors = authors;
         this.type = type;
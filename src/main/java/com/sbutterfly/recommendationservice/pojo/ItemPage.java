@@ -0,0 +1,31 @@
+package com.sbutterfly.recommendationservice.pojo;
+
+import java.util.List;
+
+/**
+ * A page of items together with the upstream offset of the next page.
+ */
+public class ItemPage {
+    private final List<Item> items;
+    private final int nextOffset;
+
+    public ItemPage(List<Item> items, int nextOffset) {
+        this.items = items;
+        this.nextOffset = nextOffset;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * Offset of the first item, which is not returned yet, or -1 if the upstream has no more items.
+     */
+    public int getNextOffset() {
+        return nextOffset;
+    }
+
+    public boolean hasNext() {
+        return nextOffset >= 0;
+    }
+}
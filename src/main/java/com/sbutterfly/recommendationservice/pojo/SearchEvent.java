@@ -0,0 +1,62 @@
+package com.sbutterfly.recommendationservice.pojo;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An element of a streaming search response.
+ * Each provider emits an {@link Type#ITEMS} event as soon as it answers,
+ * and the stream is finished by a single {@link Type#SUMMARY} event with error messages.
+ */
+public class SearchEvent {
+    private final Type type;
+    private final String provider;
+    private final List<Item> items;
+    private final String errorMessage;
+
+    private SearchEvent(Type type, String provider, List<Item> items, String errorMessage) {
+        this.type = type;
+        this.provider = provider;
+        this.items = Objects.requireNonNull(items);
+        this.errorMessage = Objects.requireNonNull(errorMessage);
+    }
+
+    public static SearchEvent items(String provider, List<Item> items) {
+        return new SearchEvent(Type.ITEMS, Objects.requireNonNull(provider), items, "");
+    }
+
+    public static SearchEvent summary(String errorMessage) {
+        return new SearchEvent(Type.SUMMARY, null, List.of(), errorMessage);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchEvent{" +
+            "type=" + type +
+            ", provider='" + provider + '\'' +
+            ", items=" + items +
+            ", errorMessage='" + errorMessage + '\'' +
+            '}';
+    }
+
+    public enum Type {
+        ITEMS,
+        SUMMARY
+    }
+}
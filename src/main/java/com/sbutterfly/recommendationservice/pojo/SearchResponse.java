@@ -3,10 +3,14 @@ package com.sbutterfly.recommendationservice.pojo;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class SearchResponse {
 
     private final String errorMessage;
     private final List<Item> items;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String nextCursor;
 
     public SearchResponse(String errorMessage) {
         this(errorMessage, List.of());
@@ -17,8 +21,13 @@ public class SearchResponse {
     }
 
     public SearchResponse(String errorMessage, List<Item> items) {
+        this(errorMessage, items, null);
+    }
+
+    public SearchResponse(String errorMessage, List<Item> items, String nextCursor) {
         this.errorMessage = Objects.requireNonNull(errorMessage);
         this.items = Objects.requireNonNull(items);
+        this.nextCursor = nextCursor;
     }
 
     public String getErrorMessage() {
@@ -29,11 +38,19 @@ public class SearchResponse {
         return items;
     }
 
+    /**
+     * Cursor of the next page of a paged search, or null if there are no more items or the search is not paged.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     @Override
     public String toString() {
         return "SearchResponse{" +
             "errorMessage='" + errorMessage + '\'' +
             ", items=" + items +
+            ", nextCursor='" + nextCursor + '\'' +
             '}';
     }
 }
@@ -0,0 +1,23 @@
+package com.sbutterfly.recommendationservice.pojo;
+
+import java.util.List;
+import java.util.Objects;
+
+public class SuggestResponse {
+    private final List<String> suggestions;
+
+    public SuggestResponse(List<String> suggestions) {
+        this.suggestions = Objects.requireNonNull(suggestions);
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestResponse{" +
+            "suggestions=" + suggestions +
+            '}';
+    }
+}
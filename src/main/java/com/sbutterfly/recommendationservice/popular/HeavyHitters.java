@@ -0,0 +1,204 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most frequent keys of an unbounded stream in fixed memory:
+ * a count-min sketch estimates frequencies, and the top {@code capacity} keys are kept in an indexed min-heap.
+ * All methods are synchronized.
+ */
+public class HeavyHitters {
+    /**
+     * The most frequent first, then by key.
+     */
+    static final Comparator<Count> ORDER = Comparator.comparingLong(Count::getCount).reversed().thenComparing(Count::getKey);
+
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+    private final Entry[] heap;
+    private final Map<String, Entry> entries;
+    private int size;
+
+    /**
+     * @param width    counters per row, rounded up to a power of two
+     * @param depth    number of rows
+     * @param capacity number of tracked keys
+     */
+    public HeavyHitters(int width, int depth, int capacity) {
+        int rowWidth = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.depth = depth;
+        this.mask = rowWidth - 1;
+        this.counters = new long[rowWidth * depth];
+        this.heap = new Entry[capacity];
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Counts an occurrence of the key and returns its estimated frequency.
+     */
+    public synchronized long add(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, h1, h2)]);
+        }
+        long estimate = min + 1;
+        for (int row = 0; row < depth; row++) {
+            int i = index(row, h1, h2);
+            if (counters[i] < estimate) {
+                counters[i] = estimate;
+            }
+        }
+
+        var entry = entries.get(key);
+        if (entry != null) {
+            entry.count = estimate;
+            siftDown(entry.index);
+        } else if (size < heap.length) {
+            entry = new Entry(key, estimate, size);
+            heap[size++] = entry;
+            entries.put(key, entry);
+            siftUp(entry.index);
+        } else if (heap.length > 0 && estimate > heap[0].count) {
+            entries.remove(heap[0].key);
+            entry = new Entry(key, estimate, 0);
+            heap[0] = entry;
+            entries.put(key, entry);
+            siftDown(0);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimated frequency of the key.
+     */
+    public synchronized long estimate(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, h1, h2)]);
+        }
+        return min;
+    }
+
+    /**
+     * Up to {@code limit} tracked keys, the most frequent first.
+     */
+    public synchronized List<Count> top(int limit) {
+        var result = new ArrayList<Count>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Count(heap[i].key, heap[i].count));
+        }
+        result.sort(ORDER);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Multiplies all frequencies by the factor, so keys, which are not popular anymore, are replaced by new ones.
+     * Scaling keeps the order of the heap.
+     */
+    public synchronized void decay(double factor) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (long) (counters[i] * factor);
+        }
+        for (int i = 0; i < size; i++) {
+            heap[i].count = (long) (heap[i].count * factor);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int index(int row, long h1, long h2) {
+        return row * (mask + 1) + (int) ((h1 + row * h2) & mask);
+    }
+
+    private void siftUp(int i) {
+        var entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(entry, i);
+    }
+
+    private void siftDown(int i) {
+        var entry = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(entry, i);
+    }
+
+    private void place(Entry entry, int i) {
+        heap[i] = entry;
+        entry.index = i;
+    }
+
+    /**
+     * Spreads bits of a hash code, the finalizer of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Entry {
+        private final String key;
+        private long count;
+        private int index;
+
+        private Entry(String key, long count, int index) {
+            this.key = key;
+            this.count = count;
+            this.index = index;
+        }
+    }
+
+    public static class Count {
+        private final String key;
+        private final long count;
+
+        public Count(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + count;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.sbutterfly.recommendationservice.cache.SearchCache;
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.clients.SearchProvider;
+import com.sbutterfly.recommendationservice.cluster.ClusterPeers;
+import com.sbutterfly.recommendationservice.ratelimit.RateLimiters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tracks the most popular search queries and refreshes their cached results before they get stale.
+ */
+@Component
+public class PopularQueries implements DisposableBean {
+    private final static Logger log = LoggerFactory.getLogger(PopularQueries.class);
+
+    private final boolean enabled;
+    private final StripedHeavyHitters heavyHitters;
+    private final List<SearchProvider> providers;
+    private final SearchCache searchCache;
+    private final ClusterPeers clusterPeers;
+    private final RateLimiters rateLimiters;
+    private final MeterRegistry meterRegistry;
+    private final double decay;
+    private final int warmTop;
+    private final Duration warmInterval;
+    private final Duration warmAhead;
+    private final double rateShare;
+    private final Disposable warming;
+
+    public PopularQueries(@Value("${search.popular.enabled:true}") boolean enabled,
+                          @Value("${search.popular.sketch-width:2048}") int sketchWidth,
+                          @Value("${search.popular.sketch-depth:4}") int sketchDepth,
+                          @Value("${search.popular.capacity:1000}") int capacity,
+                          @Value("${search.popular.stripes:16}") int stripes,
+                          @Value("${search.popular.decay:0.9}") double decay,
+                          @Value("${search.popular.warm.enabled:true}") boolean warmEnabled,
+                          @Value("${search.popular.warm.top:100}") int warmTop,
+                          @Value("${search.popular.warm.interval:30s}") Duration warmInterval,
+                          @Value("${search.popular.warm.ahead:1m}") Duration warmAhead,
+                          @Value("${search.popular.warm.rate-share:0.2}") double rateShare,
+                          @Value("${search.providers:itunes,googleBooks}") List<String> enabledProviders,
+                          List<SearchProvider> availableProviders,
+                          SearchCache searchCache,
+                          ClusterPeers clusterPeers,
+                          RateLimiters rateLimiters,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.heavyHitters = new StripedHeavyHitters(sketchWidth, sketchDepth, capacity, stripes);
+        var names = enabledProviders.stream().map(String::trim).collect(Collectors.toSet());
+        this.providers = availableProviders.stream()
+            .filter(provider -> names.contains(provider.getName()))
+            .collect(Collectors.toList());
+        this.searchCache = searchCache;
+        this.clusterPeers = clusterPeers;
+        this.rateLimiters = rateLimiters;
+        this.meterRegistry = meterRegistry;
+        this.decay = decay;
+        this.warmTop = warmTop;
+        this.warmInterval = warmInterval;
+        this.warmAhead = warmAhead;
+        this.rateShare = rateShare;
+        this.warming = enabled && warmEnabled
+            ? Flux.interval(warmInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> warm(), 1)
+                .subscribe()
+            : null;
+        Gauge.builder("search.popular.tracked", heavyHitters, StripedHeavyHitters::size)
+            .description("Number of tracked popular queries")
+            .register(meterRegistry);
+    }
+
+    public void record(String query) {
+        if (!enabled) {
+            return;
+        }
+        var normalized = SearchKey.normalize(query);
+        if (!normalized.isEmpty()) {
+            heavyHitters.add(normalized);
+        }
+    }
+
+    /**
+     * Up to {@code limit} most popular normalized queries with their estimated number of searches.
+     */
+    public List<HeavyHitters.Count> top(int limit) {
+        return heavyHitters.top(limit);
+    }
+
+    /**
+     * One round of warming, which never fails.
+     */
+    Mono<Void> warm() {
+        // other peers warm queries, which they own, so only owners call upstream services
+        var top = heavyHitters.top(warmTop).stream()
+            .filter(count -> clusterPeers.isOwner(count.getKey()))
+            .collect(Collectors.toList());
+        return Flux.fromIterable(providers)
+            .flatMap(provider -> warm(provider, top))
+            .then(Mono.fromRunnable(() -> heavyHitters.decay(decay)))
+            .onErrorResume(e -> {
+                log.warn("Failed to warm popular queries", e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Void> warm(SearchProvider provider, List<HeavyHitters.Count> top) {
+        var name = provider.getName();
+        double rate = rateShare * rateLimiters.permitsPerSecond(name);
+        long budget = (long) (rate * warmInterval.toMillis() / 1000);
+        if (budget <= 0 || top.isEmpty()) {
+            return Mono.empty();
+        }
+        var spacing = Duration.ofNanos((long) (1e9 / rate));
+        return Flux.fromIterable(top)
+            .concatMap(count -> searchCache.warm(name, count.getKey(), provider.getLimit(), warmAhead,
+                    () -> provider.search(count.getKey()).timeout(provider.getTimeout()))
+                .doOnNext(called -> {
+                    if (called) {
+                        counter(name, "refreshed").increment();
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.debug("Failed to warm {} search of {}", name, count.getKey(), e);
+                    counter(name, "failed").increment();
+                    return Mono.just(true);
+                })
+                .flatMap(called -> called ? Mono.delay(spacing).thenReturn(true) : Mono.just(false)))
+            .filter(called -> called)
+            .take(budget)
+            .then();
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.popular.warmed")
+            .description("Warming searches of popular queries by provider and result (refreshed, failed)")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        if (warming != null) {
+            warming.dispose();
+        }
+    }
+}
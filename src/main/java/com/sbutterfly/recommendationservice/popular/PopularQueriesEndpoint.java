@@ -0,0 +1,38 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Most popular search queries with their estimated number of searches:
+ * {@code curl "http://localhost:8080/actuator/popular?limit=20"}.
+ */
+@Component
+@Endpoint(id = "popular")
+public class PopularQueriesEndpoint {
+    private final PopularQueries popularQueries;
+
+    public PopularQueriesEndpoint(PopularQueries popularQueries) {
+        this.popularQueries = popularQueries;
+    }
+
+    @ReadOperation
+    public Map<String, List<Map<String, Object>>> popular(@Nullable Integer limit) {
+        var queries = popularQueries.top(limit == null ? 20 : limit).stream()
+            .<Map<String, Object>>map(count -> {
+                var query = new LinkedHashMap<String, Object>();
+                query.put("query", count.getKey());
+                query.put("count", count.getCount());
+                return query;
+            })
+            .collect(Collectors.toList());
+        return Map.of("queries", queries);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HeavyHitters} split into stripes by key, so concurrent searches of different queries rarely wait for each other.
+ * Every key is counted by one stripe, which has its share of the counters and of the capacity.
+ */
+public class StripedHeavyHitters {
+    private final HeavyHitters[] stripes;
+
+    /**
+     * @param width    counters per row of all stripes
+     * @param depth    number of rows
+     * @param capacity number of tracked keys of all stripes
+     * @param stripes  number of independently locked stripes
+     */
+    public StripedHeavyHitters(int width, int depth, int capacity, int stripes) {
+        this.stripes = new HeavyHitters[Math.max(1, stripes)];
+        int stripeWidth = Math.max(2, width / this.stripes.length);
+        int stripeCapacity = (capacity + this.stripes.length - 1) / this.stripes.length;
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new HeavyHitters(stripeWidth, depth, stripeCapacity);
+        }
+    }
+
+    /**
+     * Counts an occurrence of the key and returns its estimated frequency.
+     */
+    public long add(String key) {
+        return stripe(key).add(key);
+    }
+
+    public long estimate(String key) {
+        return stripe(key).estimate(key);
+    }
+
+    /**
+     * Up to {@code limit} tracked keys of all stripes, the most frequent first.
+     */
+    public List<HeavyHitters.Count> top(int limit) {
+        var result = new ArrayList<HeavyHitters.Count>();
+        for (var stripe : stripes) {
+            result.addAll(stripe.top(limit));
+        }
+        result.sort(HeavyHitters.ORDER);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public void decay(double factor) {
+        for (var stripe : stripes) {
+            stripe.decay(factor);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (var stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private HeavyHitters stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+}
@@ -0,0 +1,186 @@
+package com.sbutterfly.recommendationservice.ratelimit;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Token bucket rate limiter of requests to an upstream service, which slows down on {@code 429 Too Many Requests}.
+ * Requests wait for a permit in a bounded queue and are rejected with {@link RateLimitExceededException} when it's full.
+ */
+public class AdaptiveRateLimiter implements ExchangeFilterFunction {
+    private final static Logger log = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final String provider;
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    private final Counter throttled;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private int queued;
+
+    public AdaptiveRateLimiter(String provider, double maxRate, int burst, int maxQueue, Duration maxWait,
+                               MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.maxRate = maxRate;
+        this.minRate = maxRate / 64;
+        this.burst = Math.max(1, burst);
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rate = maxRate;
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+
+        this.waitTimer = Timer.builder("search.ratelimit.wait")
+            .description("Time spent waiting for a rate limiter permit")
+            .tag("provider", provider)
+            .register(meterRegistry);
+        this.rejected = Counter.builder("search.ratelimit.rejected")
+            .description("Requests rejected by the rate limiter")
+            .tag("provider", provider)
+            .register(meterRegistry);
+        this.throttled = Counter.builder("search.ratelimit.throttled")
+            .description("Responses with 429 Too Many Requests status")
+            .tag("provider", provider)
+            .register(meterRegistry);
+        Gauge.builder("search.ratelimit.queue", this, AdaptiveRateLimiter::queued)
+            .description("Requests waiting for a rate limiter permit")
+            .tag("provider", provider)
+            .register(meterRegistry);
+        Gauge.builder("search.ratelimit.rate", this, AdaptiveRateLimiter::rate)
+            .description("Current permits per second")
+            .tag("provider", provider)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return acquire()
+            .then(Mono.defer(() -> next.exchange(request)))
+            .doOnNext(this::onResponse);
+    }
+
+    /**
+     * Completes when a permit is available or fails with {@link RateLimitExceededException} immediately.
+     */
+    Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                waitNanos = Math.max(0, pausedUntil - now);
+                if (tokens < 1) {
+                    waitNanos = Math.max(waitNanos, (long) ((1 - tokens) / rate * NANOS_PER_SECOND));
+                }
+                if (waitNanos == 0) {
+                    tokens -= 1;
+                    waitTimer.record(0, TimeUnit.NANOSECONDS);
+                    return Mono.empty();
+                }
+                if (queued >= maxQueue || waitNanos > maxWaitNanos) {
+                    rejected.increment();
+                    return Mono.error(new RateLimitExceededException(provider));
+                }
+                tokens -= 1;
+                queued++;
+            }
+            long wait = waitNanos;
+            return Mono.delay(Duration.ofNanos(wait))
+                .doFinally(signal -> release(signal == SignalType.CANCEL))
+                .doOnNext(ignored -> waitTimer.record(wait, TimeUnit.NANOSECONDS))
+                .then();
+        });
+    }
+
+    private synchronized void release(boolean cancelled) {
+        queued--;
+        if (cancelled) {
+            // return the reserved permit, so the next requests don't wait for it
+            tokens += 1;
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * rate / NANOS_PER_SECOND);
+        lastRefill = now;
+    }
+
+    private void onResponse(ClientResponse response) {
+        if (response.rawStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            throttled.increment();
+            var retryAfter = retryAfter(response.headers().asHttpHeaders());
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                rate = Math.max(minRate, rate / 2);
+                pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+            }
+            log.warn("{} rate limit is exceeded, reduce rate to {} requests per second and pause for {}", provider, rate(), retryAfter);
+        } else if (response.rawStatusCode() / 100 == 2) {
+            synchronized (this) {
+                if (rate < maxRate) {
+                    refill(System.nanoTime());
+                    rate = Math.min(maxRate, rate + maxRate / 100);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses Retry-After header, which is either a number of seconds or a date.
+     * If it's missing, waits for a single permit at the max rate.
+     */
+    private Duration retryAfter(HttpHeaders headers) {
+        var value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        var fallback = Duration.ofNanos((long) (NANOS_PER_SECOND / maxRate));
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                var duration = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return duration.isNegative() ? fallback : duration;
+            } catch (DateTimeParseException ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    synchronized int queued() {
+        return queued;
+    }
+
+    synchronized double rate() {
+        return rate;
+    }
+}
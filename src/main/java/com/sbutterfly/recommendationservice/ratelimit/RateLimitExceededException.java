@@ -0,0 +1,11 @@
+package com.sbutterfly.recommendationservice.ratelimit;
+
+/**
+ * Thrown when a request to an upstream service can't get a permit in time.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String provider) {
+        super("Rate limit of " + provider + " is exceeded");
+    }
+}
@@ -0,0 +1,61 @@
+package com.sbutterfly.recommendationservice.ratelimit;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+/**
+ * Creates rate limiting filters for upstream web clients.
+ */
+@Component
+public class RateLimiters {
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    public RateLimiters(Environment environment,
+                        MeterRegistry meterRegistry,
+                        @Value("${search.ratelimit.enabled:true}") boolean enabled,
+                        @Value("${search.ratelimit.permits-per-second:10}") double permitsPerSecond,
+                        @Value("${search.ratelimit.burst:20}") int burst,
+                        @Value("${search.ratelimit.max-queue:100}") int maxQueue,
+                        @Value("${search.ratelimit.max-wait:2s}") Duration maxWait) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+    }
+
+    public ExchangeFilterFunction forProvider(String provider) {
+        if (!enabled) {
+            return (request, next) -> next.exchange(request);
+        }
+        var prefix = "search.ratelimit." + provider + ".";
+        return new AdaptiveRateLimiter(
+            provider,
+            permitsPerSecond(provider),
+            environment.getProperty(prefix + "burst", Integer.class, burst),
+            environment.getProperty(prefix + "max-queue", Integer.class, maxQueue),
+            environment.getProperty(prefix + "max-wait", Duration.class, maxWait),
+            meterRegistry
+        );
+    }
+
+    /**
+     * Configured rate of requests to the provider, even if rate limiting is disabled.
+     */
+    public double permitsPerSecond(String provider) {
+        return environment.getProperty("search.ratelimit." + provider + ".permits-per-second", Double.class, permitsPerSecond);
+    }
+}
@@ -0,0 +1,11 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+/**
+ * Thrown instead of calling an upstream service while its circuit breaker is open.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String provider) {
+        super("Circuit breaker of " + provider + " is open");
+    }
+}
@@ -0,0 +1,218 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Count based circuit breaker of calls to an upstream service.
+ * <p>
+ * While {@link State#CLOSED}, outcomes of the last {@code windowSize} calls are recorded, and the breaker opens
+ * when either failure rate or slow call rate reaches its threshold. Calls which are cancelled after
+ * {@code slowCallDuration}, e.g. by a timeout, count as slow. Client errors and calls rejected
+ * by the local rate limiter are not recorded.
+ * While {@link State#OPEN}, calls fail with {@link CallNotPermittedException} without reaching the upstream.
+ * After {@code openDuration} the breaker lets {@code halfOpenCalls} trial calls through,
+ * and closes if all of them succeed in time or opens again otherwise.
+ */
+public class CircuitBreaker {
+    private final static Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String provider;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int index;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+
+    /**
+     * @param provider              name of the upstream service used in metrics and errors
+     * @param windowSize            number of the last calls, which are used to calculate rates
+     * @param minimumCalls          min number of calls before rates are calculated
+     * @param failureRateThreshold  failure rate (0..1), which opens the breaker
+     * @param slowCallDuration      calls longer than that are slow
+     * @param slowCallRateThreshold slow call rate (0..1), which opens the breaker
+     * @param openDuration          time the breaker stays open before trial calls
+     * @param halfOpenCalls         number of trial calls
+     */
+    public CircuitBreaker(String provider, int windowSize, int minimumCalls,
+                          double failureRateThreshold, Duration slowCallDuration, double slowCallRateThreshold,
+                          Duration openDuration, int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.meterRegistry = meterRegistry;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+
+        Gauge.builder("search.circuitbreaker.state", this, breaker -> breaker.getState().ordinal())
+            .description("Circuit breaker state: 0 - closed, 1 - open, 2 - half open")
+            .tag("provider", provider)
+            .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                counter("rejected").increment();
+                return Mono.error(new CallNotPermittedException(provider));
+            }
+            long start = System.nanoTime();
+            return call
+                .doOnSuccess(value -> onResult(false, System.nanoTime() - start))
+                .doOnError(e -> {
+                    if (isFailure(e)) {
+                        onResult(true, System.nanoTime() - start);
+                    } else {
+                        release();
+                    }
+                })
+                .doOnCancel(() -> onCancel(System.nanoTime() - start));
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /**
+     * Only errors of the upstream service count: timeouts, connection errors, 5xx and 429.
+     * Other 4xx are caused by the query, and rejections of the local rate limiter never reach the upstream.
+     */
+    private static boolean isFailure(Throwable e) {
+        if (e instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) e).getRawStatusCode();
+            return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException || e instanceof IOException;
+    }
+
+    private void onResult(boolean isFailure, long durationNanos) {
+        boolean isSlow = durationNanos >= slowCallNanos;
+        counter(isFailure ? "failure" : isSlow ? "slow" : "success").increment();
+        record(isFailure, isSlow);
+    }
+
+    private void onCancel(long durationNanos) {
+        if (durationNanos >= slowCallNanos) {
+            counter("slow").increment();
+            record(false, true);
+            return;
+        }
+        release();
+    }
+
+    private synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits--;
+        }
+    }
+
+    private synchronized void record(boolean isFailure, boolean isSlow) {
+        if (state == State.HALF_OPEN) {
+            if (isFailure || isSlow) {
+                transition(State.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        if (calls == failed.length) {
+            failures -= failed[index] ? 1 : 0;
+            slowCalls -= slow[index] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failed[index] = isFailure;
+        slow[index] = isSlow;
+        failures += isFailure ? 1 : 0;
+        slowCalls += isSlow ? 1 : 0;
+        index = (index + 1) % failed.length;
+
+        if (calls >= minimumCalls
+            && ((double) failures / calls >= failureRateThreshold || (double) slowCalls / calls >= slowCallRateThreshold)) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State next) {
+        log.warn("{} circuit breaker changes state from {} to {}", provider, state, next);
+        state = next;
+        halfOpenPermits = 0;
+        halfOpenSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            index = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+
+    private Counter counter(String outcome) {
+        return Counter.builder("search.circuitbreaker.calls")
+            .description("Calls through the circuit breaker by outcome (success, failure, slow, rejected)")
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
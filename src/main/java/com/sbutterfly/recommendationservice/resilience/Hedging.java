@@ -0,0 +1,107 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hedged calls to an upstream service: if the call is still pending after the delay,
+ * the same call is sent once more, and whichever returns a value first wins while the other one is cancelled.
+ * An error of the first call is returned as is, and the hedged call is not sent after the first call has finished.
+ * <p>
+ * The delay is a percentile of recent call latencies, but not less than {@code minDelay}.
+ * Until there are enough samples, {@code initialDelay} is used.
+ */
+public class Hedging {
+    private static final int SAMPLES = 256;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECALCULATE_EVERY = 32;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final Counter hedged;
+    private final Counter hedgeWon;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int index;
+    private int samples;
+    private int sinceRecalculation;
+    private volatile long delayNanos;
+
+    /**
+     * @param provider      name of the upstream service used in metrics
+     * @param percentile    percentile of latencies (0..1) used as the delay
+     * @param minDelay      min delay before the hedged call
+     * @param initialDelay  delay which is used until there are enough latency samples
+     * @param meterRegistry registry for hedged calls metrics
+     */
+    public Hedging(String provider, double percentile, Duration minDelay, Duration initialDelay, MeterRegistry meterRegistry) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.delayNanos = Math.max(minDelayNanos, initialDelayNanos);
+        this.hedged = Counter.builder("search.hedging.calls")
+            .description("Hedged calls sent because the first call was slower than the hedging delay")
+            .tag("provider", provider)
+            .tag("result", "sent")
+            .register(meterRegistry);
+        this.hedgeWon = Counter.builder("search.hedging.calls")
+            .description("Hedged calls sent because the first call was slower than the hedging delay")
+            .tag("provider", provider)
+            .tag("result", "won")
+            .register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            // empty results are wrapped, so they finish the race like values do
+            var primary = timed(Mono.defer(call)).map(Optional::of).defaultIfEmpty(Optional.empty());
+            var hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                .then(Mono.defer(() -> {
+                    hedged.increment();
+                    return timed(Mono.defer(call)).doOnNext(value -> hedgeWon.increment());
+                }))
+                .map(Optional::of)
+                // the primary call is still pending and decides the outcome
+                .onErrorResume(e -> Mono.never());
+            return Flux.merge(primary, hedge)
+                .next()
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+        });
+    }
+
+    /**
+     * Current delay before a hedged call.
+     */
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnNext(value -> record(System.nanoTime() - start));
+        });
+    }
+
+    private synchronized void record(long latencyNanos) {
+        latencies[index] = latencyNanos;
+        index = (index + 1) % SAMPLES;
+        samples = Math.min(SAMPLES, samples + 1);
+        if (samples >= MIN_SAMPLES && ++sinceRecalculation >= RECALCULATE_EVERY) {
+            sinceRecalculation = 0;
+            var sorted = Arrays.copyOf(latencies, samples);
+            Arrays.sort(sorted);
+            var value = sorted[(int) Math.min(samples - 1, Math.ceil(percentile * samples) - 1)];
+            delayNanos = Math.max(minDelayNanos, value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breakers and hedging of upstream calls.
+ */
+@Component
+public class ResiliencePolicies {
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, Hedging> hedgings = new ConcurrentHashMap<>();
+
+    public ResiliencePolicies(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends the call, hedges it if hedging is enabled, and passes it through the circuit breaker of the provider.
+     */
+    public <T> Mono<T> execute(String provider, Supplier<Mono<T>> call) {
+        var hedging = hedging(provider);
+        var hedged = hedging == null ? Mono.defer(call) : hedging.execute(call);
+        var circuitBreaker = circuitBreaker(provider);
+        return circuitBreaker == null ? hedged : circuitBreaker.execute(hedged);
+    }
+
+    /**
+     * Returns circuit breaker of the provider or null if circuit breakers are disabled.
+     */
+    public CircuitBreaker circuitBreaker(String provider) {
+        if (!property(provider, "circuitbreaker", "enabled", Boolean.class, true)) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(provider, name -> new CircuitBreaker(
+            name,
+            property(name, "circuitbreaker", "window-size", Integer.class, 20),
+            property(name, "circuitbreaker", "minimum-calls", Integer.class, 10),
+            property(name, "circuitbreaker", "failure-rate-threshold", Double.class, 0.5),
+            property(name, "circuitbreaker", "slow-call-duration", Duration.class, Duration.ofSeconds(3)),
+            property(name, "circuitbreaker", "slow-call-rate-threshold", Double.class, 0.8),
+            property(name, "circuitbreaker", "open-duration", Duration.class, Duration.ofSeconds(30)),
+            property(name, "circuitbreaker", "half-open-calls", Integer.class, 3),
+            meterRegistry
+        ));
+    }
+
+    private Hedging hedging(String provider) {
+        if (!property(provider, "hedging", "enabled", Boolean.class, false)) {
+            return null;
+        }
+        return hedgings.computeIfAbsent(provider, name -> new Hedging(
+            name,
+            property(name, "hedging", "percentile", Double.class, 0.95),
+            property(name, "hedging", "min-delay", Duration.class, Duration.ofMillis(50)),
+            property(name, "hedging", "initial-delay", Duration.class, Duration.ofSeconds(1)),
+            meterRegistry
+        ));
+    }
+
+    /**
+     * Reads {@code search.<policy>.<provider>.<property>} falling back to {@code search.<policy>.<property>}.
+     */
+    private <T> T property(String provider, String policy, String property, Class<T> type, T defaultValue) {
+        var value = environment.getProperty("search." + policy + "." + provider + "." + property, type);
+        return value != null ? value : environment.getProperty("search." + policy + "." + property, type, defaultValue);
+    }
+}
@@ -0,0 +1,117 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque position of a paged search: the upstream offset of every provider, which has more items.
+ * Encoded as url-safe base64 of {@code itunes=10&googleBooks=12}.
+ */
+public final class Cursor {
+    private final Map<String, Integer> offsets;
+
+    private Cursor(Map<String, Integer> offsets) {
+        this.offsets = offsets;
+    }
+
+    /**
+     * Cursor of the first page.
+     */
+    public static Cursor start(List<String> providers) {
+        var offsets = new LinkedHashMap<String, Integer>();
+        providers.forEach(provider -> offsets.put(provider, 0));
+        return new Cursor(offsets);
+    }
+
+    /**
+     * @param offsets next offsets of providers, -1 if a provider has no more items
+     */
+    static Cursor of(List<String> providers, int[] offsets) {
+        var map = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < providers.size(); i++) {
+            if (offsets[i] >= 0) {
+                map.put(providers.get(i), offsets[i]);
+            }
+        }
+        return new Cursor(map);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not a valid cursor
+     */
+    public static Cursor parse(String value) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor " + value, e);
+        }
+        var offsets = new LinkedHashMap<String, Integer>();
+        if (!decoded.isEmpty()) {
+            for (var pair : decoded.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Invalid cursor " + value);
+                }
+                int offset;
+                try {
+                    offset = Integer.parseInt(pair.substring(separator + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid cursor " + value, e);
+                }
+                if (offset < 0) {
+                    throw new IllegalArgumentException("Invalid cursor " + value);
+                }
+                offsets.put(pair.substring(0, separator), offset);
+            }
+        }
+        return new Cursor(offsets);
+    }
+
+    /**
+     * Offset of the provider or -1 if it has no more items.
+     */
+    public int offset(String provider) {
+        return offsets.getOrDefault(provider, -1);
+    }
+
+    /**
+     * True if none of providers has more items.
+     */
+    public boolean isEmpty() {
+        return offsets.isEmpty();
+    }
+
+    public String encode() {
+        var value = offsets.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue())
+            .collect(Collectors.joining("&"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return offsets.equals(((Cursor) o).offsets);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offsets);
+    }
+
+    @Override
+    public String toString() {
+        return "Cursor" + offsets;
+    }
+}
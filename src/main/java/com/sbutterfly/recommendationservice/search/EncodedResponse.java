@@ -0,0 +1,75 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.netty.buffer.Unpooled;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+/**
+ * Json of a search response together with its ETag.
+ * The bytes are never modified, so a response could be written to any number of clients concurrently.
+ */
+public final class EncodedResponse {
+    private final ByteBuffer content;
+    private final String eTag;
+    private final List<List<Item>> sources;
+
+    EncodedResponse(ByteBuffer content, String eTag, List<List<Item>> sources) {
+        this.content = content;
+        this.eTag = eTag;
+        this.sources = sources;
+    }
+
+    /**
+     * Quoted strong ETag, a hash of the content.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public int size() {
+        return content.remaining();
+    }
+
+    boolean isDirect() {
+        return content.isDirect();
+    }
+
+    /**
+     * Copy of the response with the content in direct memory.
+     */
+    EncodedResponse toDirect() {
+        var direct = ByteBuffer.allocateDirect(content.remaining()).put(content.duplicate()).flip();
+        return new EncodedResponse(direct, eTag, sources);
+    }
+
+    /**
+     * Wraps the content into a buffer of the given factory without copying it.
+     * Netty buffers don't own the content, so releasing them doesn't free it.
+     */
+    public DataBuffer toDataBuffer(DataBufferFactory bufferFactory) {
+        if (bufferFactory instanceof NettyDataBufferFactory) {
+            return ((NettyDataBufferFactory) bufferFactory).wrap(Unpooled.wrappedBuffer(content.duplicate()));
+        }
+        return bufferFactory.wrap(content.duplicate());
+    }
+
+    /**
+     * True if the response was merged from the same provider results, compared by identity.
+     */
+    boolean isEncodedFrom(List<List<Item>> results) {
+        if (sources == null || sources.size() != results.size()) {
+            return false;
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (sources.get(i) != results.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
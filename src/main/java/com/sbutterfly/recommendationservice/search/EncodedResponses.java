@@ -0,0 +1,106 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Keeps json of the latest merged response of every query and sort, which is reused
+ * as long as every provider returns the very same cached result.
+ */
+@Component
+public class EncodedResponses {
+    private final boolean enabled;
+    private final ObjectMapper mapper;
+    private final Cache<String, EncodedResponse> responses;
+    private final Timer serializeTimer;
+    private final Counter hits;
+    private final Counter misses;
+
+    public EncodedResponses(@Value("${search.encoded.enabled:true}") boolean enabled,
+                            @Value("${search.cache.enabled:true}") boolean cacheEnabled,
+                            @Value("${search.encoded.max-size:32MB}") DataSize maxSize,
+                            ObjectMapper mapper,
+                            SearchMetrics searchMetrics,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled && cacheEnabled;
+        this.mapper = mapper;
+        this.serializeTimer = searchMetrics.timer("serialize", SearchMetrics.ALL);
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.responses = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher((String key, EncodedResponse response) -> key.length() * 2 + response.size())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "encoded");
+    }
+
+    /**
+     * Returns the kept json of the key if it was merged from the same results, otherwise merges and encodes them.
+     */
+    public EncodedResponse get(String key, List<SearchResponse> results, Supplier<SearchResponse> merger) {
+        if (!enabled || results.stream().anyMatch(result -> !result.getErrorMessage().isEmpty())) {
+            return encode(merger.get());
+        }
+        var sources = results.stream().map(SearchResponse::getItems).collect(Collectors.toList());
+        var kept = responses.getIfPresent(key);
+        if (kept != null && kept.isEncodedFrom(sources)) {
+            hits.increment();
+            if (!kept.isDirect()) {
+                kept = kept.toDirect();
+                responses.put(key, kept);
+            }
+            return kept;
+        }
+        misses.increment();
+        var encoded = encode(merger.get(), sources);
+        responses.put(key, encoded);
+        return encoded;
+    }
+
+    /**
+     * Encodes the response to heap memory without keeping it.
+     */
+    public EncodedResponse encode(SearchResponse response) {
+        return encode(response, null);
+    }
+
+    private EncodedResponse encode(SearchResponse response, List<List<Item>> sources) {
+        long start = System.nanoTime();
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode search response", e);
+        }
+        var eTag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new EncodedResponse(ByteBuffer.wrap(json), eTag, sources);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("search.encoded.requests")
+            .description("Lookups of encoded responses by result (hit, miss)")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Holds pages, which are fetched in the background before they are requested, for {@code search.pagination.prefetch-ttl}.
+ */
+@Component
+public class PagePrefetcher {
+    private final static Logger log = LoggerFactory.getLogger(PagePrefetcher.class);
+
+    private final boolean enabled;
+    private final Cache<String, Mono<SearchResponse>> pages;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter wasted;
+
+    public PagePrefetcher(@Value("${search.pagination.prefetch:true}") boolean enabled,
+                          @Value("${search.pagination.prefetch-ttl:30s}") Duration ttl,
+                          @Value("${search.pagination.prefetch-max-entries:1000}") long maxEntries,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.wasted = counter(meterRegistry, "wasted");
+        this.pages = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxEntries)
+            .scheduler(Scheduler.systemScheduler())
+            .<String, Mono<SearchResponse>>removalListener((key, page, cause) -> {
+                if (cause.wasEvicted()) {
+                    wasted.increment();
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Removes and returns the prefetched page or returns null if there is none.
+     */
+    public Mono<SearchResponse> take(String key) {
+        if (!enabled) {
+            return null;
+        }
+        var page = pages.asMap().remove(key);
+        (page == null ? misses : hits).increment();
+        return page;
+    }
+
+    /**
+     * Starts loading the page unless it's already prefetched.
+     */
+    public void prefetch(String key, Supplier<Mono<SearchResponse>> loader) {
+        if (!enabled || pages.asMap().containsKey(key)) {
+            return;
+        }
+        var page = Mono.defer(loader).cache();
+        if (pages.asMap().putIfAbsent(key, page) == null) {
+            page.subscribe(null, e -> log.debug("Failed to prefetch page {}", key, e));
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("search.pagination.prefetch")
+            .description("Prefetched pages by result (hit, miss, wasted)")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
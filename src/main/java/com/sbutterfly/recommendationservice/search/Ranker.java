@@ -0,0 +1,21 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+
+/**
+ * Orders merged items of all providers. Rankers are selected by name with {@code sort} parameter of the search.
+ */
+public interface Ranker {
+    String getName();
+
+    /**
+     * Returns up to {@code limit} items of all responses in ranked order.
+     *
+     * @param query     search query as the user typed it
+     * @param responses responses in the order of providers
+     */
+    List<Item> rank(String query, List<SearchResponse> responses, int limit);
+}
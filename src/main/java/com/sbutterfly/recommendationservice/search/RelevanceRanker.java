@@ -0,0 +1,164 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Orders items by relevance to the query: overlap of query tokens with the title and authors, an exact title match
+ * and the position in the provider's response. Items of different types are interleaved.
+ */
+@Component
+public class RelevanceRanker implements Ranker {
+    private final double titleOverlap;
+    private final double authorOverlap;
+    private final double exactTitle;
+    private final double position;
+    private final double interleave;
+
+    public RelevanceRanker(@Value("${search.ranking.relevance.title-overlap:1.0}") double titleOverlap,
+                           @Value("${search.ranking.relevance.author-overlap:0.3}") double authorOverlap,
+                           @Value("${search.ranking.relevance.exact-title:1.0}") double exactTitle,
+                           @Value("${search.ranking.relevance.position:0.5}") double position,
+                           @Value("${search.ranking.relevance.interleave:0.2}") double interleave) {
+        this.titleOverlap = titleOverlap;
+        this.authorOverlap = authorOverlap;
+        this.exactTitle = exactTitle;
+        this.position = position;
+        this.interleave = interleave;
+    }
+
+    @Override
+    public String getName() {
+        return "relevance";
+    }
+
+    @Override
+    public List<Item> rank(String query, List<SearchResponse> responses, int limit) {
+        var normalizedQuery = SearchKey.normalize(query);
+        var queryTokens = tokens(normalizedQuery);
+        // types are kept in the order of providers, so ties are resolved in favor of the first provider
+        var byType = new LinkedHashMap<Item.Type, List<Scored>>();
+        for (var response : responses) {
+            var items = response.getItems();
+            for (int i = 0; i < items.size(); i++) {
+                var item = items.get(i);
+                byType.computeIfAbsent(item.getType(), type -> new ArrayList<>())
+                    .add(new Scored(item, score(item, i, normalizedQuery, queryTokens)));
+            }
+        }
+
+        var best = new ArrayList<List<Scored>>(byType.size());
+        for (var scored : byType.values()) {
+            best.add(TopK.select(scored, Scored.BEST_FIRST, limit));
+        }
+        return interleave(best, limit);
+    }
+
+    /**
+     * Merges lists of items of every type, which are already ordered by score.
+     * On every step the head with the best score wins, and heads of a type other than the previous one get the bonus.
+     */
+    private List<Item> interleave(List<List<Scored>> lists, int limit) {
+        var heads = new int[lists.size()];
+        var result = new ArrayList<Item>(limit);
+        Item.Type previous = null;
+        while (result.size() < limit) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < lists.size(); i++) {
+                if (heads[i] == lists.get(i).size()) {
+                    continue;
+                }
+                var head = lists.get(i).get(heads[i]);
+                double score = head.score + (previous != null && head.item.getType() != previous ? interleave : 0);
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            var item = lists.get(best).get(heads[best]++).item;
+            result.add(item);
+            previous = item.getType();
+        }
+        return result;
+    }
+
+    private double score(Item item, int index, String normalizedQuery, Set<String> queryTokens) {
+        double score = position / (index + 1);
+        if (item.getTitle() != null) {
+            var title = SearchKey.normalize(item.getTitle());
+            score += titleOverlap * overlap(queryTokens, title);
+            if (title.equals(normalizedQuery)) {
+                score += exactTitle;
+            }
+        }
+        if (item.getAuthors() != null) {
+            score += authorOverlap * overlap(queryTokens, SearchKey.normalize(item.getAuthors()));
+        }
+        return score;
+    }
+
+    /**
+     * Share of query tokens, which are found among tokens of the text.
+     */
+    private static double overlap(Set<String> queryTokens, String text) {
+        if (queryTokens.isEmpty()) {
+            return 0;
+        }
+        var found = new HashSet<String>();
+        forEachToken(text, token -> {
+            if (queryTokens.contains(token)) {
+                found.add(token);
+            }
+        });
+        return (double) found.size() / queryTokens.size();
+    }
+
+    private static Set<String> tokens(String text) {
+        var tokens = new HashSet<String>();
+        forEachToken(text, tokens::add);
+        return tokens;
+    }
+
+    /**
+     * Splits normalized text into runs of letters and digits.
+     */
+    private static void forEachToken(String text, Consumer<String> consumer) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                consumer.accept(text.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    private static class Scored {
+        static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble((Scored s) -> s.score).reversed();
+
+        private final Item item;
+        private final double score;
+
+        private Scored(Item item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.sbutterfly.recommendationservice.dedup.Deduplicator;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Merges responses of several providers into a single response.
+ */
+@Component
+public class ResponseMerger {
+    private final Map<String, Ranker> rankers;
+    private final Ranker defaultRanker;
+    private final Deduplicator deduplicator;
+    private final SearchMetrics searchMetrics;
+
+    public ResponseMerger(List<Ranker> rankers,
+                          @Value("${search.ranking.default-sort:title}") String defaultSort,
+                          Deduplicator deduplicator,
+                          SearchMetrics searchMetrics) {
+        this.deduplicator = deduplicator;
+        this.searchMetrics = searchMetrics;
+        this.rankers = rankers.stream()
+            .collect(Collectors.toMap(Ranker::getName, Function.identity()));
+        this.defaultRanker = this.rankers.get(defaultSort);
+        if (defaultRanker == null) {
+            throw new IllegalArgumentException("Unknown sort " + defaultSort + ", available sorts are " + this.rankers.keySet());
+        }
+    }
+
+    /**
+     * Names of available rankers, which could be passed as {@code sort}.
+     */
+    public Set<String> sorts() {
+        return rankers.keySet();
+    }
+
+    /**
+     * @param sort  name of the ranker or null for the default one
+     * @param limit max number of items
+     */
+    public SearchResponse merge(String query, List<SearchResponse> responses, String sort, int limit) {
+        var ranker = sort == null ? defaultRanker : rankers.get(sort);
+        if (ranker == null) {
+            throw new IllegalArgumentException("Unknown sort " + sort + ", available sorts are " + rankers.keySet());
+        }
+        var distinct = searchMetrics.time("merge", () -> deduplicator.distinct(responses));
+        var items = searchMetrics.time("rank", () -> ranker.rank(query, distinct, limit));
+        return new SearchResponse(errorMessage(responses), items);
+    }
+
+    /**
+     * Sorts items of a single provider by title.
+     */
+    public List<Item> sort(List<Item> items) {
+        return items.stream()
+            .sorted(TitleRanker.BY_TITLE)
+            .collect(Collectors.toList());
+    }
+
+    public String errorMessage(List<SearchResponse> responses) {
+        return responses.stream()
+            .map(SearchResponse::getErrorMessage)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.joining("; "));
+    }
+}
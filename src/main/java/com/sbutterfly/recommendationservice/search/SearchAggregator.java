@@ -0,0 +1,290 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.sbutterfly.recommendationservice.cache.SearchCache;
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.clients.SearchProvider;
+import com.sbutterfly.recommendationservice.cluster.PeerCache;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.BatchSearchResponse;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchEvent;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import com.sbutterfly.recommendationservice.store.ResultStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Searches all enabled providers in parallel and merges their responses.
+ * When {@code search.deadline} expires, responses which have arrived are returned with errors of the rest.
+ */
+@Service
+public class SearchAggregator {
+    private final static Logger log = LoggerFactory.getLogger(SearchAggregator.class);
+
+    private final List<SearchProvider> providers;
+    private final int[] batchConcurrency;
+    private final Duration deadline;
+    private final SearchCache searchCache;
+    private final PeerCache peerCache;
+    private final ResultStore resultStore;
+    private final ResponseMerger responseMerger;
+    private final PagePrefetcher pagePrefetcher;
+    private final EncodedResponses encodedResponses;
+    private final SearchMetrics searchMetrics;
+    private final int maxItems;
+
+    public SearchAggregator(Environment environment,
+                            List<SearchProvider> availableProviders,
+                            @Value("${search.providers:itunes,googleBooks}") List<String> enabledProviders,
+                            @Value("${search.deadline:5s}") Duration deadline,
+                            @Value("${search.batch.concurrency:4}") int defaultBatchConcurrency,
+                            SearchCache searchCache,
+                            PeerCache peerCache,
+                            ResultStore resultStore,
+                            ResponseMerger responseMerger,
+                            PagePrefetcher pagePrefetcher,
+                            EncodedResponses encodedResponses,
+                            SearchMetrics searchMetrics) {
+        var providersByName = availableProviders.stream()
+            .collect(Collectors.toMap(SearchProvider::getName, Function.identity()));
+        this.providers = enabledProviders.stream()
+            .map(String::trim)
+            .map(name -> {
+                var provider = providersByName.get(name);
+                if (provider == null) {
+                    throw new IllegalArgumentException("Unknown search provider " + name + ", available providers are " + providersByName.keySet());
+                }
+                return provider;
+            })
+            .collect(Collectors.toList());
+        this.batchConcurrency = providers.stream()
+            .mapToInt(provider -> environment.getProperty(
+                "search.batch.providers." + provider.getName() + ".concurrency", Integer.class, defaultBatchConcurrency))
+            .toArray();
+        this.deadline = deadline;
+        this.searchCache = searchCache;
+        this.peerCache = peerCache;
+        this.resultStore = resultStore;
+        this.responseMerger = responseMerger;
+        this.pagePrefetcher = pagePrefetcher;
+        this.encodedResponses = encodedResponses;
+        this.searchMetrics = searchMetrics;
+        this.maxItems = environment.getProperty("search.ranking.max-items", Integer.class,
+            providers.stream().mapToInt(SearchProvider::getLimit).sum());
+    }
+
+    /**
+     * Returns json of the merged response, which is reused while providers return the same cached results.
+     *
+     * @param sort name of the ranker of merged items or null for the default one
+     */
+    public Mono<EncodedResponse> searchEncoded(String query, String sort) {
+        return searchMetrics.time("fanout", SearchMetrics.ALL, fanOut(query).collectList())
+            .map(arrived -> {
+                var responses = ordered(arrived);
+                return encodedResponses.get(SearchKey.normalize(query) + '\n' + sort, responses,
+                    () -> responseMerger.merge(query, responses, sort, maxItems));
+            });
+    }
+
+    /**
+     * Searches a page of up to {@code pageSize} items. The response contains a cursor of the next page if there are more items.
+     *
+     * @param cursor cursor of the page or null for the first page
+     */
+    public Mono<SearchResponse> searchPage(String query, String sort, int pageSize, Cursor cursor) {
+        var position = cursor == null
+            ? Cursor.start(providers.stream().map(SearchProvider::getName).collect(Collectors.toList()))
+            : cursor;
+        var prefetched = cursor == null ? null : pagePrefetcher.take(pageKey(query, sort, pageSize, position));
+        var page = prefetched == null
+            ? fetchPage(query, sort, pageSize, position)
+            : prefetched.onErrorResume(e -> fetchPage(query, sort, pageSize, position));
+        return page.doOnNext(response -> {
+            if (response.getNextCursor() != null) {
+                var next = Cursor.parse(response.getNextCursor());
+                pagePrefetcher.prefetch(pageKey(query, sort, pageSize, next), () -> fetchPage(query, sort, pageSize, next));
+            }
+        });
+    }
+
+    /**
+     * Emits items of every provider as soon as it answers, then a summary with error messages of all providers.
+     * Cancelling the stream cancels upstream calls, which are still in flight.
+     */
+    public Flux<SearchEvent> stream(String query) {
+        return Flux.defer(() -> {
+            var arrived = new SearchResponse[providers.size()];
+            return fanOut(query)
+                .doOnNext(tuple -> arrived[tuple.getT1()] = tuple.getT2())
+                .filter(tuple -> !tuple.getT2().getItems().isEmpty())
+                .map(tuple -> SearchEvent.items(providers.get(tuple.getT1()).getName(), responseMerger.sort(tuple.getT2().getItems())))
+                .concatWith(Mono.fromSupplier(() -> SearchEvent.summary(responseMerger.errorMessage(complete(arrived)))));
+        });
+    }
+
+    /**
+     * Searches every distinct normalized name and emits a response for each of them as soon as all providers have answered.
+     */
+    public Flux<BatchSearchResponse> searchBatch(List<String> names) {
+        var queries = names.stream()
+            .map(SearchKey::normalize)
+            .filter(name -> !name.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+        return Flux.defer(() -> {
+            var pending = new HashMap<String, SearchResponse[]>();
+            return Flux.range(0, providers.size())
+                .flatMap(i -> Flux.fromIterable(queries)
+                    .flatMap(query -> search(providers.get(i), query).map(response -> Tuples.of(i, query, response)),
+                        batchConcurrency[i]), providers.size())
+                .<BatchSearchResponse>handle((tuple, sink) -> {
+                    var responses = pending.computeIfAbsent(tuple.getT2(), query -> new SearchResponse[providers.size()]);
+                    responses[tuple.getT1()] = tuple.getT3();
+                    if (Arrays.stream(responses).allMatch(Objects::nonNull)) {
+                        pending.remove(tuple.getT2());
+                        sink.next(new BatchSearchResponse(tuple.getT2(), responseMerger.merge(tuple.getT2(), Arrays.asList(responses), null, maxItems)));
+                    }
+                });
+        });
+    }
+
+    /**
+     * Searches a query, which this instance owns, by one provider on behalf of another peer.
+     * Errors of the upstream service are returned as they are, so the peer can fall back to its own search.
+     *
+     * @throws IllegalArgumentException if the provider is not enabled or its limit differs from {@code limit}
+     */
+    public Mono<List<Item>> searchOwned(String providerName, String query, int limit) {
+        var provider = providers.stream()
+            .filter(p -> p.getName().equals(providerName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Search provider " + providerName + " is not enabled"));
+        if (provider.getLimit() != limit) {
+            throw new IllegalArgumentException("Limit of " + providerName + " search is " + provider.getLimit() + ", not " + limit);
+        }
+        return searchCache.get(providerName, query, limit, () -> resultStore.get(providerName, query, limit, () ->
+            upstream(provider, query)));
+    }
+
+    private Flux<Tuple2<Integer, SearchResponse>> fanOut(String query) {
+        return Flux.range(0, providers.size())
+            .flatMap(i -> search(providers.get(i), query).map(response -> Tuples.of(i, response)))
+            .take(deadline);
+    }
+
+    private Mono<SearchResponse> search(SearchProvider provider, String query) {
+        var name = provider.getName();
+        var limit = provider.getLimit();
+        var response = searchCache.get(name, query, limit, () -> resultStore.get(name, query, limit, () ->
+                peerCache.get(name, query, limit, () -> upstream(provider, query))))
+            .doOnNext(items -> log.debug("Got {} items from {} search", items.size(), name))
+            .doOnError(e -> log.warn("{} search throw an error", provider.getDisplayName(), e))
+            .map(SearchResponse::new)
+            .onErrorReturn(unavailable(provider));
+        return searchMetrics.time("provider", name, response);
+    }
+
+    private Mono<List<Item>> upstream(SearchProvider provider, String query) {
+        return searchMetrics.upstream(provider.getName(), provider.search(query).timeout(timeout(provider)));
+    }
+
+    /**
+     * Searches providers, which have more items, at their offsets. The page size is split evenly between them.
+     * Offsets of providers, which fail or don't answer before the deadline, stay the same in the next cursor.
+     */
+    private Mono<SearchResponse> fetchPage(String query, String sort, int pageSize, Cursor cursor) {
+        return Mono.defer(() -> {
+            var offsets = new int[providers.size()];
+            var responses = new SearchResponse[providers.size()];
+            var active = new ArrayList<Integer>();
+            for (int i = 0; i < providers.size(); i++) {
+                offsets[i] = cursor.offset(providers.get(i).getName());
+                if (offsets[i] < 0) {
+                    responses[i] = new SearchResponse(List.of());
+                } else {
+                    active.add(i);
+                }
+            }
+            return Flux.range(0, active.size())
+                .filter(j -> share(pageSize, active.size(), j) > 0)
+                .flatMap(j -> {
+                    int i = active.get(j);
+                    var provider = providers.get(i);
+                    var call = provider.searchPage(query, offsets[i], share(pageSize, active.size(), j))
+                        .timeout(timeout(provider));
+                    return searchMetrics.upstream(provider.getName(), call)
+                        .doOnError(e -> log.warn("{} search throw an error", provider.getDisplayName(), e))
+                        .map(page -> Tuples.of(i, new SearchResponse(page.getItems()), page.getNextOffset()))
+                        .onErrorReturn(Tuples.of(i, unavailable(provider), offsets[i]));
+                })
+                .take(deadline)
+                .collectList()
+                .map(arrived -> {
+                    var nextOffsets = offsets.clone();
+                    arrived.forEach(tuple -> {
+                        responses[tuple.getT1()] = tuple.getT2();
+                        nextOffsets[tuple.getT1()] = tuple.getT3();
+                    });
+                    var merged = responseMerger.merge(query, complete(responses), sort, pageSize);
+                    var next = Cursor.of(providers.stream().map(SearchProvider::getName).collect(Collectors.toList()), nextOffsets);
+                    return new SearchResponse(merged.getErrorMessage(), merged.getItems(), next.isEmpty() ? null : next.encode());
+                });
+        });
+    }
+
+    /**
+     * Orders responses as providers, so error messages and items with equal titles are always merged in the same order.
+     */
+    private List<SearchResponse> ordered(List<Tuple2<Integer, SearchResponse>> arrived) {
+        var responses = new SearchResponse[providers.size()];
+        arrived.forEach(tuple -> responses[tuple.getT1()] = tuple.getT2());
+        return complete(responses);
+    }
+
+    /**
+     * Fills responses of providers, which haven't answered, with error messages.
+     */
+    private List<SearchResponse> complete(SearchResponse[] responses) {
+        IntStream.range(0, responses.length)
+            .filter(i -> responses[i] == null)
+            .forEach(i -> responses[i] = unavailable(providers.get(i)));
+        return Arrays.asList(responses);
+    }
+
+    private Duration timeout(SearchProvider provider) {
+        return provider.getTimeout().compareTo(deadline) < 0 ? provider.getTimeout() : deadline;
+    }
+
+    /**
+     * Number of items of the page requested from the j-th of n providers.
+     */
+    private static int share(int pageSize, int n, int j) {
+        return pageSize / n + (j < pageSize % n ? 1 : 0);
+    }
+
+    private static String pageKey(String query, String sort, int pageSize, Cursor cursor) {
+        return SearchKey.normalize(query) + '\n' + sort + '\n' + pageSize + '\n' + cursor.encode();
+    }
+
+    private static SearchResponse unavailable(SearchProvider provider) {
+        return new SearchResponse(provider.getDisplayName() + " search is unavailable");
+    }
+}
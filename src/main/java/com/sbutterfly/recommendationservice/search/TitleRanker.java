@@ -0,0 +1,29 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Orders items alphabetically by title. Items with equal titles keep the order of providers.
+ */
+@Component
+public class TitleRanker implements Ranker {
+    static final Comparator<Item> BY_TITLE = Comparator.comparing(Item::getTitle);
+
+    @Override
+    public String getName() {
+        return "title";
+    }
+
+    @Override
+    public List<Item> rank(String query, List<SearchResponse> responses, int limit) {
+        var items = new ArrayList<Item>();
+        responses.forEach(response -> items.addAll(response.getItems()));
+        return TopK.select(items, BY_TITLE, limit);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the first k elements in the given order with a bounded heap, i.e. in O(n log k) instead of sorting all of them.
+ * Selection is stable: equal elements keep their original order.
+ */
+final class TopK {
+    private TopK() {
+    }
+
+    static <T> List<T> select(List<T> elements, Comparator<? super T> order, int k) {
+        if (k <= 0 || elements.isEmpty()) {
+            return List.of();
+        }
+        // the heap head is the worst of the selected elements, so it's evicted first
+        Comparator<Integer> byOrder = (a, b) -> order.compare(elements.get(a), elements.get(b));
+        var worstFirst = byOrder.thenComparing(Comparator.naturalOrder()).reversed();
+        var heap = new PriorityQueue<Integer>(Math.min(k, elements.size()) + 1, worstFirst);
+        for (int i = 0; i < elements.size(); i++) {
+            heap.add(i);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        var result = new ArrayList<T>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(elements.get(heap.poll()));
+        }
+        // polled from the worst to the best
+        Collections.reverse(result);
+        return result;
+    }
+}
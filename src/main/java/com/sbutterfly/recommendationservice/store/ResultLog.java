@@ -0,0 +1,364 @@
+package com.sbutterfly.recommendationservice.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.pojo.Item;
+
+/**
+ * Append-only log of search results stored in a memory-mapped file:
+ * <pre>
+ * magic:int | payloadLength:int | crc32:int | timestamp:long | provider | query | limit:int | count:int | items...
+ * </pre>
+ * Only the index of keys to offsets is kept on heap. The log is compacted when it's full
+ * and holds a lock of {@code <path>.lock} until it's closed.
+ */
+public class ResultLog implements Closeable {
+    private static final int MAGIC = 0x52534C31;
+    private static final int HEADER_SIZE = 12;
+    private static final Item.Type[] TYPES = Item.Type.values();
+
+    private final Path path;
+    private final int capacity;
+    private final long maxAgeMillis;
+    private final FileChannel lockChannel;
+    private volatile Segment segment;
+
+    /**
+     * Opens an existing log or creates an empty one.
+     *
+     * @param path         log file
+     * @param capacity     max size of the log file in bytes
+     * @param maxAgeMillis records older than that are dropped on compaction
+     * @throws IllegalStateException if the log is used by another process
+     */
+    public ResultLog(Path path, int capacity, long maxAgeMillis) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAgeMillis;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.lockChannel = lock(path);
+        try {
+            this.segment = Segment.open(path, capacity);
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the latest record for the key or null if there is none.
+     */
+    public Record get(SearchKey key) {
+        var current = segment;
+        var entry = current.index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        var buffer = current.buffer.duplicate();
+        buffer.position(entry.offset + HEADER_SIZE);
+        long timestamp = buffer.getLong();
+        skipString(buffer);
+        skipString(buffer);
+        buffer.getInt();
+        int count = buffer.getInt();
+        var items = new ArrayList<Item>(count);
+        for (int i = 0; i < count; i++) {
+            var type = TYPES[buffer.get()];
+            var title = readString(buffer);
+            var authors = readString(buffer);
+            items.add(new Item(title, authors, type));
+        }
+        return new Record(items, timestamp);
+    }
+
+    public synchronized void append(SearchKey key, List<Item> items, long timestamp) throws IOException {
+        var payload = encode(key, items, timestamp);
+        int length = HEADER_SIZE + payload.length;
+        if (length > capacity / 2) {
+            return;
+        }
+        if (segment.writePosition + length > capacity) {
+            compact(timestamp);
+        }
+        segment.write(key, payload, timestamp);
+    }
+
+    /**
+     * Rewrites the log leaving only the latest record of each key, which is not older than max age.
+     * The oldest records are dropped as well until live records occupy no more than half of the capacity.
+     */
+    public synchronized void compact(long now) throws IOException {
+        var current = segment;
+        var live = new ArrayList<Map.Entry<SearchKey, IndexEntry>>();
+        for (var entry : current.index.entrySet()) {
+            if (now - entry.getValue().timestamp <= maxAgeMillis) {
+                live.add(entry);
+            }
+        }
+        live.sort(Comparator.comparingLong((Map.Entry<SearchKey, IndexEntry> e) -> e.getValue().timestamp).reversed());
+        long budget = capacity / 2;
+        int keep = 0;
+        for (var entry : live) {
+            budget -= entry.getValue().length;
+            if (budget < 0) {
+                break;
+            }
+            keep++;
+        }
+        var kept = live.subList(0, keep);
+        kept.sort(Comparator.comparingLong(e -> e.getValue().timestamp));
+
+        var compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compactedPath);
+        var compacted = Segment.create(compactedPath, capacity);
+        var source = current.buffer.duplicate();
+        for (var entry : kept) {
+            var index = entry.getValue();
+            source.limit(index.offset + index.length).position(index.offset);
+            compacted.copy(entry.getKey(), source, index);
+        }
+        compacted.buffer.force();
+        Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        segment = compacted;
+        current.close();
+    }
+
+    public int size() {
+        return segment.index.size();
+    }
+
+    /**
+     * Bytes occupied by records, including the ones which were superseded by newer records.
+     */
+    public int usedBytes() {
+        return segment.writePosition;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            segment.buffer.force();
+            segment.close();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    /**
+     * The log file is replaced on compaction, so the lock is held on a separate file.
+     */
+    private static FileChannel lock(Path path) throws IOException {
+        var channel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException e) {
+            // locked by this process
+        }
+        channel.close();
+        throw new IllegalStateException("Result log " + path + " is used by another process");
+    }
+
+    private static byte[] encode(SearchKey key, List<Item> items, long timestamp) {
+        var provider = key.getProvider().getBytes(StandardCharsets.UTF_8);
+        var query = key.getQuery().getBytes(StandardCharsets.UTF_8);
+        var encodedItems = new ArrayList<byte[]>(items.size() * 2);
+        int size = 8 + 4 + provider.length + 4 + query.length + 4 + 4;
+        for (Item item : items) {
+            var title = bytes(item.getTitle());
+            var authors = bytes(item.getAuthors());
+            encodedItems.add(title);
+            encodedItems.add(authors);
+            size += 1 + 4 + length(title) + 4 + length(authors);
+        }
+
+        var buffer = ByteBuffer.allocate(size);
+        buffer.putLong(timestamp);
+        putString(buffer, provider);
+        putString(buffer, query);
+        buffer.putInt(key.getLimit());
+        buffer.putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            buffer.put((byte) items.get(i).getType().ordinal());
+            putString(buffer, encodedItems.get(2 * i));
+            putString(buffer, encodedItems.get(2 * i + 1));
+        }
+        return buffer.array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static int crc(ByteBuffer payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public static class Record {
+        private final List<Item> items;
+        private final long timestamp;
+
+        private Record(List<Item> items, long timestamp) {
+            this.items = items;
+            this.timestamp = timestamp;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        /**
+         * Epoch millis when the result was received from the upstream service.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private static class IndexEntry {
+        private final int offset;
+        private final int length;
+        private final long timestamp;
+
+        private IndexEntry(int offset, int length, long timestamp) {
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * A mapped file together with the index of its records.
+     * Compaction creates a new segment, so readers never see offsets of one file applied to another.
+     */
+    private static class Segment implements Closeable {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final Map<SearchKey, IndexEntry> index = new ConcurrentHashMap<>();
+        private int writePosition;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int capacity) throws IOException {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+
+        /**
+         * Maps the file and rebuilds the index by reading record headers and keys.
+         * Scanning stops at the first record which is incomplete or corrupted, e.g. after a crash in the middle of a write.
+         */
+        static Segment open(Path path, int capacity) throws IOException {
+            var segment = create(path, capacity);
+            var buffer = segment.buffer.duplicate();
+            int position = 0;
+            while (position + HEADER_SIZE <= capacity) {
+                buffer.limit(capacity).position(position);
+                int magic = buffer.getInt();
+                int payloadLength = buffer.getInt();
+                int crc = buffer.getInt();
+                int length = HEADER_SIZE + payloadLength;
+                if (magic != MAGIC || payloadLength <= 0 || position + length > capacity) {
+                    break;
+                }
+                buffer.limit(position + length);
+                if (crc(buffer.slice()) != crc) {
+                    break;
+                }
+                long timestamp = buffer.getLong();
+                var provider = readString(buffer);
+                var query = readString(buffer);
+                int limit = buffer.getInt();
+                segment.index.put(SearchKey.of(provider, query, limit), new IndexEntry(position, length, timestamp));
+                position += length;
+            }
+            segment.writePosition = position;
+            return segment;
+        }
+
+        void write(SearchKey key, byte[] payload, long timestamp) {
+            int offset = writePosition;
+            var buffer = this.buffer.duplicate();
+            buffer.position(offset + HEADER_SIZE);
+            buffer.put(payload);
+            buffer.position(offset);
+            buffer.putInt(MAGIC);
+            buffer.putInt(payload.length);
+            buffer.putInt(crc(ByteBuffer.wrap(payload)));
+            writePosition = offset + HEADER_SIZE + payload.length;
+            index.put(key, new IndexEntry(offset, HEADER_SIZE + payload.length, timestamp));
+        }
+
+        void copy(SearchKey key, ByteBuffer record, IndexEntry entry) {
+            int offset = writePosition;
+            var buffer = this.buffer.duplicate();
+            buffer.position(offset);
+            buffer.put(record);
+            writePosition = offset + entry.length;
+            index.put(key, new IndexEntry(offset, entry.length, entry.timestamp));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
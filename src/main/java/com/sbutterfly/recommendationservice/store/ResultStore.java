@@ -0,0 +1,121 @@
+package com.sbutterfly.recommendationservice.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Persistent store of recent upstream results, which survives restarts.
+ * Results younger than {@code search.store.ttl} are returned without calling the upstream service,
+ * older ones only when it fails.
+ */
+@Component
+public class ResultStore implements DisposableBean {
+    private final static Logger log = LoggerFactory.getLogger(ResultStore.class);
+
+    private final ResultLog resultLog;
+    private final Duration ttl;
+    private final MeterRegistry meterRegistry;
+
+    public ResultStore(@Value("${search.store.enabled:true}") boolean enabled,
+                       @Value("${search.store.path:${java.io.tmpdir}/recommendation-service/results.log}") String path,
+                       @Value("${search.store.max-size:256MB}") DataSize maxSize,
+                       @Value("${search.store.ttl:5m}") Duration ttl,
+                       @Value("${search.store.max-age:7d}") Duration maxAge,
+                       MeterRegistry meterRegistry) throws IOException {
+        this.ttl = ttl;
+        this.meterRegistry = meterRegistry;
+        this.resultLog = enabled ? open(Path.of(path), maxSize, maxAge) : null;
+        if (resultLog != null) {
+            log.info("Opened result store {} with {} entries", path, resultLog.size());
+            Gauge.builder("search.store.entries", resultLog, ResultLog::size)
+                .description("Number of results in the persistent store")
+                .register(meterRegistry);
+            Gauge.builder("search.store.used", resultLog, ResultLog::usedBytes)
+                .description("Bytes used by the persistent store log")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        }
+    }
+
+    private static ResultLog open(Path path, DataSize maxSize, Duration maxAge) throws IOException {
+        try {
+            return new ResultLog(path, (int) Math.min(Integer.MAX_VALUE, maxSize.toBytes()), maxAge.toMillis());
+        } catch (IllegalStateException e) {
+            log.warn("Result store is disabled, set search.store.path to a file of this instance", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a stored result if it's recent enough, otherwise subscribes to {@code loader} and stores its result.
+     * If the loader fails, any stored result which is not older than max age is returned instead of the error.
+     */
+    public Mono<List<Item>> get(String provider, String query, int limit, Supplier<Mono<List<Item>>> loader) {
+        if (resultLog == null) {
+            return loader.get();
+        }
+        return Mono.defer(() -> {
+            var key = SearchKey.of(provider, query, limit);
+            var record = resultLog.get(key);
+            long now = System.currentTimeMillis();
+            if (record != null && now - record.getTimestamp() < ttl.toMillis()) {
+                counter(provider, "hit").increment();
+                return Mono.just(record.getItems());
+            }
+
+            counter(provider, "miss").increment();
+            var load = Mono.defer(loader)
+                .doOnNext(items -> append(key, items));
+            if (record == null) {
+                return load;
+            }
+            return load.onErrorResume(e -> {
+                log.warn("{} search failed, return stored result for {}", provider, key, e);
+                counter(provider, "fallback").increment();
+                return Mono.just(record.getItems());
+            });
+        });
+    }
+
+    private void append(SearchKey key, List<Item> items) {
+        long timestamp = System.currentTimeMillis();
+        Mono.fromCallable(() -> {
+                resultLog.append(key, items, timestamp);
+                return key;
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, e -> log.warn("Failed to store result for {}", key, e));
+    }
+
+    private Counter counter(String provider, String result) {
+        return Counter.builder("search.store.requests")
+            .description("Persistent store lookups by provider and result (hit, miss, fallback)")
+            .tag("provider", provider)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (resultLog != null) {
+            resultLog.close();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.sbutterfly.recommendationservice.suggest;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+
+/**
+ * Weighted prefix index of titles and authors. It's a radix tree, whose nodes keep the max weight of their subtree,
+ * so top-k lookups visit only the heaviest branches.
+ */
+public class SuggestionIndex {
+    private static final int MAGIC = 0x53474931;
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final int maxEntries;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private int size;
+    private long evicted;
+
+    public SuggestionIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Adds the weight to the entry of the text, creating it if it doesn't exist.
+     */
+    public void add(String text, double weight) {
+        var key = SearchKey.normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            insert(key, text, weight);
+            if (size > maxEntries) {
+                evict(maxEntries - maxEntries / 10);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} texts starting with the prefix, heaviest first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        var key = SearchKey.normalize(prefix);
+        lock.readLock().lock();
+        try {
+            var node = find(key);
+            if (node == null || limit <= 0) {
+                return List.of();
+            }
+            // best-first search: a node is expanded before any node or entry lighter than its subtree max
+            var result = new ArrayList<String>(limit);
+            var queue = new PriorityQueue<Candidate>(Comparator.comparingDouble((Candidate c) -> c.weight).reversed());
+            queue.add(new Candidate(node, node.maxWeight, false));
+            while (!queue.isEmpty() && result.size() < limit) {
+                var candidate = queue.poll();
+                if (candidate.terminal) {
+                    result.add(candidate.node.text);
+                    continue;
+                }
+                if (candidate.node.text != null) {
+                    queue.add(new Candidate(candidate.node, candidate.node.weight, true));
+                }
+                for (var child : candidate.node.children) {
+                    queue.add(new Candidate(child, child.maxWeight, false));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Multiplies weights of all entries by the factor.
+     */
+    public void decay(double factor) {
+        lock.writeLock().lock();
+        try {
+            scale(root, factor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of entries evicted since the index was created.
+     */
+    public long evicted() {
+        lock.readLock().lock();
+        try {
+            return evicted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes all entries: magic, count, then text and weight of every entry.
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        var entries = new ArrayList<Node>();
+        lock.readLock().lock();
+        try {
+            collect(root, entries);
+        } finally {
+            lock.readLock().unlock();
+        }
+        var output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(entries.size());
+        for (var entry : entries) {
+            output.writeUTF(entry.text);
+            output.writeDouble(entry.weight);
+        }
+        output.flush();
+    }
+
+    /**
+     * Adds entries written by {@link #writeTo}.
+     */
+    public void readFrom(InputStream stream) throws IOException {
+        var input = new DataInputStream(stream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a suggestion index snapshot");
+        }
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            add(input.readUTF(), input.readDouble());
+        }
+    }
+
+    private void insert(String key, String text, double weight) {
+        var path = new ArrayList<Node>();
+        var node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                var child = new Node(key.substring(i));
+                node.insertChild(-index - 1, child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            var child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // split the edge: the common part becomes a new node with the rest of the old label below it
+                var middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.maxWeight = child.maxWeight;
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        if (node.text == null) {
+            node.text = text;
+            size++;
+        }
+        node.weight += weight;
+        for (var n : path) {
+            n.maxWeight = Math.max(n.maxWeight, node.weight);
+        }
+    }
+
+    /**
+     * Returns the node whose subtree contains all keys starting with the prefix.
+     */
+    private Node find(String prefix) {
+        var node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            var child = node.children[index];
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void evict(int targetSize) {
+        var entries = new ArrayList<Node>(size);
+        collect(root, entries);
+        entries.sort(Comparator.comparingDouble(n -> n.weight));
+        for (int i = 0; i < entries.size() - targetSize; i++) {
+            entries.get(i).text = null;
+            entries.get(i).weight = 0;
+            evicted++;
+        }
+        size = Math.min(size, targetSize);
+        prune(root);
+    }
+
+    /**
+     * Removes empty leaves, merges nodes without entries into their only child and recomputes max weights.
+     */
+    private static void prune(Node node) {
+        double maxWeight = node.text == null ? 0 : node.weight;
+        var children = new ArrayList<Node>(node.children.length);
+        for (var child : node.children) {
+            prune(child);
+            if (child.text == null && child.children.length == 0) {
+                continue;
+            }
+            if (child.text == null && child.children.length == 1) {
+                var grandchild = child.children[0];
+                grandchild.label = child.label + grandchild.label;
+                child = grandchild;
+            }
+            children.add(child);
+            maxWeight = Math.max(maxWeight, child.maxWeight);
+        }
+        node.children = children.isEmpty() ? NO_CHILDREN : children.toArray(NO_CHILDREN);
+        node.maxWeight = maxWeight;
+    }
+
+    private static void scale(Node node, double factor) {
+        node.weight *= factor;
+        node.maxWeight *= factor;
+        for (var child : node.children) {
+            scale(child, factor);
+        }
+    }
+
+    private static void collect(Node node, List<Node> entries) {
+        if (node.text != null) {
+            entries.add(node);
+        }
+        for (var child : node.children) {
+            collect(child, entries);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private String text;
+        private double weight;
+        private double maxWeight;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Binary search of the child by the first character of its label, returns {@code -(insertion point) - 1} if there is none.
+         */
+        int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char value = children[middle].label.charAt(0);
+                if (value < c) {
+                    low = middle + 1;
+                } else if (value > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int index, Node child) {
+            var result = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, result, index + 1, children.length - index);
+            result[index] = child;
+            children = result;
+        }
+    }
+
+    private static class Candidate {
+        private final Node node;
+        private final double weight;
+        private final boolean terminal;
+
+        private Candidate(Node node, double weight, boolean terminal) {
+            this.node = node;
+            this.weight = weight;
+            this.terminal = terminal;
+        }
+    }
+}
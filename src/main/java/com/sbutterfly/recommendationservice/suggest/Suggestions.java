@@ -0,0 +1,165 @@
+package com.sbutterfly.recommendationservice.suggest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Autocomplete suggestions built from titles and authors of items returned by upstream services.
+ */
+@Component
+public class Suggestions implements DisposableBean {
+    private final static Logger log = LoggerFactory.getLogger(Suggestions.class);
+
+    private final SuggestionIndex index;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final FileChannel snapshotLock;
+    private final double decay;
+    private final Disposable maintenance;
+
+    public Suggestions(@Value("${search.suggest.enabled:true}") boolean enabled,
+                       @Value("${search.suggest.max-entries:100000}") int maxEntries,
+                       @Value("${search.suggest.decay:0.95}") double decay,
+                       @Value("${search.suggest.snapshot.enabled:true}") boolean snapshotEnabled,
+                       @Value("${search.suggest.snapshot.path:${java.io.tmpdir}/recommendation-service/suggestions.snapshot}") String snapshotPath,
+                       @Value("${search.suggest.snapshot.interval:5m}") Duration snapshotInterval,
+                       MeterRegistry meterRegistry) {
+        this.index = new SuggestionIndex(maxEntries);
+        this.enabled = enabled;
+        this.snapshotLock = enabled && snapshotEnabled ? lock(Path.of(snapshotPath)) : null;
+        this.snapshotPath = snapshotLock != null ? Path.of(snapshotPath) : null;
+        this.decay = decay;
+        load();
+        this.maintenance = enabled
+            ? Flux.interval(snapshotInterval, Schedulers.boundedElastic()).subscribe(tick -> maintain())
+            : null;
+        Gauge.builder("search.suggest.entries", index, SuggestionIndex::size)
+            .description("Number of entries in the suggestion index")
+            .register(meterRegistry);
+        FunctionCounter.builder("search.suggest.evicted", index, SuggestionIndex::evicted)
+            .description("Cold entries evicted from the suggestion index")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Adds weight to titles and authors of the items.
+     */
+    public void record(List<Item> items) {
+        if (!enabled) {
+            return;
+        }
+        for (var item : items) {
+            if (item.getTitle() != null) {
+                index.add(item.getTitle(), 1);
+            }
+            if (item.getAuthors() != null) {
+                for (var author : item.getAuthors().split(", ")) {
+                    index.add(author, 1);
+                }
+            }
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
+    }
+
+    private void maintain() {
+        index.decay(decay);
+        try {
+            save();
+        } catch (IOException e) {
+            log.warn("Failed to write suggestions snapshot {}", snapshotPath, e);
+        }
+    }
+
+    private void load() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try (var stream = new BufferedInputStream(Files.newInputStream(snapshotPath))) {
+            index.readFrom(stream);
+            log.info("Loaded {} suggestions from {}", index.size(), snapshotPath);
+        } catch (IOException e) {
+            log.warn("Failed to read suggestions snapshot {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the previous one, so a crash never leaves a partial snapshot.
+     */
+    private void save() throws IOException {
+        if (snapshotPath == null) {
+            return;
+        }
+        var temporary = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(), snapshotPath.getFileName().toString(), ".tmp");
+        try {
+            try (var stream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                index.writeTo(stream);
+            }
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Locks {@code <path>.lock}, so instances on the same host don't overwrite each other's snapshot.
+     * Returns null if the snapshot is used by another process.
+     */
+    private static FileChannel lock(Path path) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            var channel = FileChannel.open(path.resolveSibling(path.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                if (channel.tryLock() != null) {
+                    return channel;
+                }
+            } catch (OverlappingFileLockException e) {
+                // locked by this process
+            }
+            channel.close();
+            log.warn("Suggestions snapshot {} is used by another process, set search.suggest.snapshot.path to a file of this instance", path);
+        } catch (IOException e) {
+            log.warn("Failed to lock suggestions snapshot {}", path, e);
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (maintenance != null) {
+            maintenance.dispose();
+        }
+        try {
+            save();
+        } finally {
+            if (snapshotLock != null) {
+                snapshotLock.close();
+            }
+        }
+    }
+}
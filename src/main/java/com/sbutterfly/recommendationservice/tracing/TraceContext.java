@@ -0,0 +1,98 @@
+package com.sbutterfly.recommendationservice.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * W3C trace context of a request ({@code traceparent} header), which is kept in the Reactor context.
+ */
+public final class TraceContext {
+    public static final String HEADER = "traceparent";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    private TraceContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * Continues the trace of the {@code traceparent} header or starts a new one if the header is missing or invalid.
+     */
+    public static TraceContext fromHeader(String traceparent) {
+        if (traceparent != null && traceparent.length() == 55
+            && traceparent.charAt(2) == '-' && traceparent.charAt(35) == '-' && traceparent.charAt(52) == '-'
+            && isHex(traceparent, 0, 2) && !traceparent.startsWith("ff")) {
+            var traceId = traceparent.substring(3, 35);
+            var parentId = traceparent.substring(36, 52);
+            var flags = traceparent.substring(53, 55);
+            if (isHex(traceId, 0, 32) && isHex(parentId, 0, 16) && isHex(flags, 0, 2) && !isZero(traceId) && !isZero(parentId)) {
+                return new TraceContext(traceId, randomHex(16), (Integer.parseInt(flags, 16) & 1) == 1);
+            }
+        }
+        return new TraceContext(randomHex(32), randomHex(16), true);
+    }
+
+    /**
+     * Context of an outgoing call, which has the same trace id and a new span id.
+     */
+    public TraceContext child() {
+        return new TraceContext(traceId, randomHex(16), sampled);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String toHeader() {
+        return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    /**
+     * Adds {@code traceparent} header with a child span of the current trace to upstream requests.
+     */
+    public static ExchangeFilterFunction propagation() {
+        return (request, next) -> Mono.deferContextual(context -> next.exchange(
+            context.<TraceContext>getOrEmpty(TraceContext.class)
+                .map(trace -> ClientRequest.from(request).header(HEADER, trace.child().toHeader()).build())
+                .orElse(request)));
+    }
+
+    @Override
+    public String toString() {
+        return toHeader();
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value) {
+        return value.chars().allMatch(c -> c == '0');
+    }
+
+    private static String randomHex(int length) {
+        var random = ThreadLocalRandom.current();
+        var chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = Character.forDigit(random.nextInt(16), 16);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,26 @@
+package com.sbutterfly.recommendationservice.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts the trace context of every request into the Reactor context and returns its trace id in {@code X-Trace-Id} header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceWebFilter implements WebFilter {
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var trace = TraceContext.fromHeader(exchange.getRequest().getHeaders().getFirst(TraceContext.HEADER));
+        exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, trace.getTraceId());
+        return chain.filter(exchange)
+            .contextWrite(context -> context.put(TraceContext.class, trace));
+    }
+}
@@ -0,0 +1,120 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "search.batch.concurrency=4")
+class BatchSearchTests {
+    @Autowired
+    WebTestClient webClient;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+    public static StubDispatcher itunesStub;
+    public static StubDispatcher googleStub;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesStub = new StubDispatcher(MockUpstreams::itunesResponse);
+        googleStub = new StubDispatcher(MockUpstreams::googleResponse);
+        itunesServer = MockUpstreams.start(itunesStub);
+        googleServer = MockUpstreams.start(googleStub);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void batchIsDeduplicatedAndConcurrencyIsCapped() {
+        // assume
+        var names = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            names.add("Love and Hate " + i);
+            names.add(" love AND hate  " + i);
+        }
+
+        // act
+        var responses = webClient.post().uri("/search/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(names)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(JsonNode.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofMinutes(1));
+
+        // assert
+        assertEquals(100, responses.size());
+        var distinctNames = new HashSet<String>();
+        responses.forEach(response -> {
+            distinctNames.add(response.get("name").asText());
+            assertEquals("", response.get("errorMessage").asText());
+            assertEquals(10, response.get("items").size());
+        });
+        assertEquals(100, distinctNames.size());
+        assertEquals(100, itunesStub.requests.get());
+        assertEquals(100, googleStub.requests.get());
+        assertTrue(itunesStub.maxInFlight.get() <= 4, "iTunes concurrency " + itunesStub.maxInFlight.get());
+        assertTrue(googleStub.maxInFlight.get() <= 4, "Google books concurrency " + googleStub.maxInFlight.get());
+    }
+
+    /**
+     * Answers every request after a short delay and tracks the number of concurrent requests.
+     */
+    static class StubDispatcher extends Dispatcher {
+        private final Supplier<MockResponse> response;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        StubDispatcher(Supplier<MockResponse> response) {
+            this.response = response;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return response.get();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.cluster.HashRing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs two instances of the service as a cluster on localhost.
+ */
+class ClusterInstancesTests {
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+    public static List<String> peers;
+    public static ConfigurableApplicationContext first;
+    public static ConfigurableApplicationContext second;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start(MockUpstreams.always(MockUpstreams::itunesResponse));
+        googleServer = MockUpstreams.start(MockUpstreams.always(MockUpstreams::googleResponse));
+        var ports = List.of(freePort(), freePort());
+        peers = List.of("http://localhost:" + ports.get(0), "http://localhost:" + ports.get(1));
+        first = start(ports.get(0));
+        second = start(ports.get(1));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        first.close();
+        second.close();
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @Test
+    void onlyOwnerCallsUpstream() {
+        // assume
+        var name = ownedBy(peers.get(1));
+        int itunesRequests = itunesServer.getRequestCount();
+        int googleRequests = googleServer.getRequestCount();
+
+        // act
+        var body = WebTestClient.bindToServer().baseUrl(peers.get(0)).build()
+            .get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+
+        // assert
+        body.jsonPath("$.errorMessage").isEqualTo("")
+            .jsonPath("$.items.length()").isEqualTo(10);
+        assertEquals(itunesRequests + 1, itunesServer.getRequestCount());
+        assertEquals(googleRequests + 1, googleServer.getRequestCount());
+        assertEquals(0, executedUpstreamCalls(first));
+        assertEquals(2, executedUpstreamCalls(second));
+    }
+
+    private static ConfigurableApplicationContext start(int port) {
+        return new SpringApplicationBuilder(RecommendationServiceApplication.class).run(
+            "--server.port=" + port,
+            "--itunes_base_uri=http://localhost:" + itunesServer.getPort(),
+            "--google_books_base_uri=http://localhost:" + googleServer.getPort(),
+            "--search.cluster.enabled=true",
+            "--search.cluster.self=http://localhost:" + port,
+            "--search.cluster.peers=" + String.join(",", peers));
+    }
+
+    private static double executedUpstreamCalls(ConfigurableApplicationContext context) {
+        return context.getBean(MeterRegistry.class).find("search.upstream.calls").tag("result", "executed").counters().stream()
+            .mapToDouble(Counter::count)
+            .sum();
+    }
+
+    private static String ownedBy(String peer) {
+        var ring = new HashRing(peers, 100);
+        return IntStream.range(0, 100)
+            .mapToObj(i -> "Love and Hate " + i)
+            .filter(candidate -> ring.owner(SearchKey.normalize(candidate)).equals(peer))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
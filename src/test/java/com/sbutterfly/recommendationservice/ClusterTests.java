@@ -0,0 +1,222 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.cluster.HashRing;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.googleResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.readFromResources;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the service as one of two peers. The other peer is a stub, which owns about half of the queries.
+ * This instance is never called by its own url, so it doesn't have to be reachable.
+ */
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "search.cluster.enabled=true",
+    "search.cluster.self=" + ClusterTests.SELF,
+    "search.cluster.retry-after=0s"
+})
+class ClusterTests {
+    static final String SELF = "http://self.invalid";
+
+    @Autowired
+    WebTestClient webClient;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+    public static MockWebServer peerServer;
+    public static PeerDispatcher peer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+        peer = new PeerDispatcher();
+        peerServer = MockUpstreams.start(peer);
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+        peerServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+        r.add("search.cluster.peers", () -> SELF + "," + peerUrl());
+    }
+
+    @Test
+    void queryOwnedByPeerIsFetchedFromIt() {
+        // assume
+        var name = ownedByPeer("Love and Hate");
+        int upstreamCalls = itunesServer.getRequestCount() + googleServer.getRequestCount();
+
+        // act
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+
+        // assert
+        body.jsonPath("$.errorMessage").isEqualTo("")
+            .jsonPath("$.items.length()").isEqualTo(2)
+            .jsonPath("$.items[0].title").isEqualTo("Love & Hate")
+            .jsonPath("$.items[1].title").isEqualTo("Love and Hate: A Novel");
+        assertEquals(upstreamCalls, itunesServer.getRequestCount() + googleServer.getRequestCount());
+        assertTrue(peer.paths.stream().anyMatch(path -> path.startsWith("/internal/cache/itunes?") && path.contains("limit=5")));
+        assertTrue(peer.paths.stream().anyMatch(path -> path.startsWith("/internal/cache/googleBooks?") && path.contains("limit=5")));
+    }
+
+    @Test
+    void unreachablePeerFallsBackToUpstream() {
+        // assume
+        var name = ownedByPeer("Love and Hate unreachable");
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse());
+
+        // act
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+
+        // assert
+        body.json(readFromResources("/love_and_hate_result.json"), true);
+    }
+
+    @Test
+    void ownerServerErrorFallsBackToUpstream() {
+        // assume
+        var name = ownedByPeer("Love and Hate failing");
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse());
+
+        // act
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+
+        // assert
+        body.json(readFromResources("/love_and_hate_result.json"), true);
+    }
+
+    @Test
+    void hangingOwnerFallsBackToUpstreamBeforeDeadline() {
+        // assume
+        var name = ownedByPeer("Love and Hate hanging");
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse());
+
+        // act
+        long start = System.nanoTime();
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        body.json(readFromResources("/love_and_hate_result.json"), true);
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "search took " + elapsed);
+    }
+
+    @Test
+    void internalEndpointSearchesOwnedQueryUpstream() {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+
+        // act
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/internal/cache/itunes")
+                .queryParam("query", ownedByPeer("Love and Hate"))
+                .queryParam("limit", 5)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+
+        // assert
+        body.jsonPath("$.length()").isEqualTo(5);
+    }
+
+    private static String peerUrl() {
+        return "http://localhost:" + peerServer.getPort();
+    }
+
+    /**
+     * The first of numbered variants of the name, which is owned by the stub peer.
+     */
+    private static String ownedByPeer(String name) {
+        var ring = new HashRing(List.of(SELF, peerUrl()), 100);
+        return IntStream.range(0, 100)
+            .mapToObj(i -> name + " " + i)
+            .filter(candidate -> ring.owner(SearchKey.normalize(candidate)).equals(peerUrl()))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    /**
+     * Answers as a peer with one item per provider, disconnects if the query is "unreachable",
+     * fails if it's "failing" and doesn't answer in time if it's "hanging".
+     */
+    static class PeerDispatcher extends Dispatcher {
+        private final ConcurrentLinkedQueue<String> paths = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            var path = Objects.requireNonNull(request.getPath());
+            paths.add(path);
+            if (path.contains("unreachable")) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+            }
+            if (path.contains("failing")) {
+                return new MockResponse().setResponseCode(502);
+            }
+            if (path.contains("hanging")) {
+                return new MockResponse().setHeadersDelay(10, TimeUnit.SECONDS);
+            }
+            var item = path.startsWith("/internal/cache/itunes")
+                ? "{\"title\":\"Love & Hate\",\"authors\":\"Michael Kiwanuka\",\"type\":\"ALBUM\"}"
+                : "{\"title\":\"Love and Hate: A Novel\",\"authors\":\"Jane Doe\",\"type\":\"BOOK\"}";
+            return new MockResponse()
+                .setBody("[" + item + "]")
+                .addHeader("Content-Type", "application/json");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The limit is fixed at 4 requests, and upstream services answer in a second, so requests could be held in flight.
+ */
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "search.concurrency.initial-limit=4",
+    "search.concurrency.min-limit=4",
+    "search.concurrency.max-limit=4",
+    "search.concurrency.batch-share=0.5",
+    "search.concurrency.retry-after=2s"
+})
+class ConcurrencyLimitTests {
+    @Autowired
+    WebTestClient webClient;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    int port;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start(MockUpstreams.always(() ->
+            MockUpstreams.itunesResponse().setBodyDelay(1, TimeUnit.SECONDS)));
+        googleServer = MockUpstreams.start(MockUpstreams.always(() ->
+            MockUpstreams.googleResponse().setBodyDelay(1, TimeUnit.SECONDS)));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void searchOverLimitIsShedWithRetryAfter() throws InterruptedException {
+        // assume
+        var held = hold(4, i -> search("Held love and hate " + i));
+
+        // act
+        var response = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Shed love and hate")
+                .build())
+            .exchange();
+
+        // assert
+        response.expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+            .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "2");
+        held.block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void actuatorAndPeerRequestsAreNotLimited() throws InterruptedException {
+        // assume
+        var held = hold(4, i -> search("Held love and hate " + i));
+
+        // act
+        var health = webClient.get().uri("/actuator/health").exchange();
+        var peer = webClient.get().uri("/internal/cache/itunes?query=love&limit=5").exchange();
+
+        // assert
+        health.expectStatus().isOk();
+        peer.expectStatus().isNotFound();
+        held.block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void batchesUseShareOfLimit() throws InterruptedException {
+        // assume
+        double shed = shedBatches();
+        var held = hold(2, i -> batch("Held batch " + i));
+
+        // act
+        var overShare = webClient.post().uri("/search/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(List.of("Shed batch"))
+            .exchange();
+        var search = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and hate next to batches")
+                .build())
+            .exchange();
+
+        // assert
+        overShare.expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        search.expectStatus().isOk();
+        assertEquals(shed + 1, shedBatches());
+        held.block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Sends the requests and waits until all of them are in flight.
+     */
+    private Mono<Void> hold(int count, IntFunction<Mono<?>> request) throws InterruptedException {
+        var inFlight = meterRegistry.get("search.concurrency.in-flight").gauge();
+        for (int i = 0; i < 100 && inFlight.value() > 0; i++) {
+            Thread.sleep(10);
+        }
+        var held = Mono.when(IntStream.range(0, count).mapToObj(request).collect(Collectors.toList())).cache();
+        held.subscribe();
+        for (int i = 0; i < 100 && inFlight.value() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, inFlight.value());
+        return held;
+    }
+
+    private double shedBatches() {
+        var counter = meterRegistry.find("search.concurrency.shed").tag("priority", "batch").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Mono<?> search(String name) {
+        return WebClient.create("http://localhost:" + port).get()
+            .uri(uriBuilder -> uriBuilder.path("/search").queryParam("name", name).build())
+            .retrieve()
+            .toBodilessEntity();
+    }
+
+    private Mono<?> batch(String name) {
+        return WebClient.create("http://localhost:" + port).post()
+            .uri("/search/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(List.of(name))
+            .retrieve()
+            .toBodilessEntity();
+    }
+}
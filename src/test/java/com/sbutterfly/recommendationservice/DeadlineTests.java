@@ -0,0 +1,70 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.googleResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "search.deadline=1s")
+class DeadlineTests {
+    @Autowired
+    WebTestClient webClient;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void providerSlowerThanDeadlineIsReportedAsUnavailable() {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse().setBodyDelay(4, TimeUnit.SECONDS));
+
+        // act
+        long start = System.nanoTime();
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and Hate")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        body.jsonPath("$.errorMessage").isEqualTo("Google books search is unavailable")
+            .jsonPath("$.items.length()").isEqualTo(5)
+            .jsonPath("$.items[?(@.type == 'BOOK')]").isEmpty();
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(3)) < 0, "search took " + elapsed);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import com.sbutterfly.recommendationservice.health.ItunesHealthIndicator;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HealthTests {
+    @Autowired
+    WebTestClient webClient;
+
+    @Autowired
+    ItunesHealthIndicator itunesHealthIndicator;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void probeIsNeitherRecordedInTrafficNorInSuggestions() {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+
+        // act
+        itunesHealthIndicator.health().block(Duration.ofSeconds(5));
+        var health = itunesHealthIndicator.health().block(Duration.ofSeconds(5));
+
+        // assert
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("probe", health.getDetails().get("source"));
+        assertEquals(0, health.getDetails().get("calls"));
+        webClient.get().uri(uriBuilder -> uriBuilder.path("/suggest")
+                .queryParam("prefix", "love")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.suggestions").isEmpty();
+    }
+}
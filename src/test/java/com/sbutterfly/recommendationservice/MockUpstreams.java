@@ -0,0 +1,72 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.util.IOUtils;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+/**
+ * Mock iTunes and Google books servers and their responses for functional tests.
+ * Every test class starts its own servers, so application contexts of different classes don't share them.
+ */
+final class MockUpstreams {
+    private MockUpstreams() {
+    }
+
+    static MockWebServer start() throws IOException {
+        var server = new MockWebServer();
+        server.start();
+        return server;
+    }
+
+    static MockWebServer start(Dispatcher dispatcher) throws IOException {
+        var server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        return server;
+    }
+
+    static void register(DynamicPropertyRegistry r, MockWebServer itunesServer, MockWebServer googleServer) {
+        r.add("itunes_base_uri", () -> "http://localhost:" + itunesServer.getPort());
+        r.add("google_books_base_uri", () -> "http://localhost:" + googleServer.getPort());
+    }
+
+    /**
+     * Answers every request with a new response of the supplier.
+     */
+    static Dispatcher always(Supplier<MockResponse> response) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return response.get();
+            }
+        };
+    }
+
+    static MockResponse itunesResponse() {
+        return new MockResponse()
+            .setBody(readFromResources("/love_and_hate_itunes_response.json"))
+            .addHeader("Content-Type", "text/javascript;charset=UTF-8");
+    }
+
+    static MockResponse googleResponse() {
+        return new MockResponse()
+            .setBody(readFromResources("/love_and_hate_google_response.json"))
+            .addHeader("Content-Type", "application/json");
+    }
+
+    static String readFromResources(String resourcePath) {
+        try (var stream = MockUpstreams.class.getResourceAsStream(resourcePath)) {
+            return IOUtils.toString(Objects.requireNonNull(stream), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
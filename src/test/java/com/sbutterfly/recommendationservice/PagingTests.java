@@ -0,0 +1,237 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sbutterfly.recommendationservice.search.Cursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pages through a catalog of 7 albums and 3 books. Pages of 4 items are split evenly between providers,
+ * which have more items, so the last page of albums comes after books are over.
+ */
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "search.deadline=2s",
+    "search.pagination.prefetch-ttl=1s"
+})
+class PagingTests {
+    @Autowired
+    WebTestClient webClient;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start(new ItunesCatalog(7));
+        googleServer = MockUpstreams.start(new GoogleCatalog(3));
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void pagesCoverAllItemsAndNextPagesArePrefetched() {
+        // assume
+        double hits = prefetched("hit");
+        double misses = prefetched("miss");
+
+        // act
+        var pages = pages("Paged love and hate");
+
+        // assert
+        assertEquals(List.of(4, 3, 3), pages.stream().map(page -> page.get("items").size()).collect(Collectors.toList()));
+        assertEquals(allTitles(), titles(pages));
+        pages.forEach(page -> assertEquals("", page.get("errorMessage").asText()));
+        assertEquals(hits + 2, prefetched("hit"));
+        assertEquals(misses, prefetched("miss"));
+    }
+
+    @Test
+    void cursorKeepsOffsetsOfProvidersWhichHaveMoreItems() {
+        // act
+        var pages = pages("Cursor of love and hate");
+
+        // assert
+        var first = Cursor.parse(pages.get(0).get("nextCursor").asText());
+        assertEquals(2, first.offset("itunes"));
+        assertEquals(2, first.offset("googleBooks"));
+        var second = Cursor.parse(pages.get(1).get("nextCursor").asText());
+        assertEquals(4, second.offset("itunes"));
+        assertEquals(-1, second.offset("googleBooks"));
+    }
+
+    @Test
+    void providerWhichMissedDeadlineKeepsItsOffset() {
+        // act
+        var pages = pages("Slow love and hate");
+
+        // assert
+        assertEquals("Google books search is unavailable", pages.get(0).get("errorMessage").asText());
+        var cursor = Cursor.parse(pages.get(0).get("nextCursor").asText());
+        assertEquals(2, cursor.offset("itunes"));
+        assertEquals(0, cursor.offset("googleBooks"));
+        assertEquals(allTitles(), titles(pages));
+    }
+
+    @Test
+    void pageWhichIsNotRequestedIsWasted() throws InterruptedException {
+        // assume
+        double wasted = prefetched("wasted");
+
+        // act
+        page("Abandoned love and hate", null);
+
+        // assert
+        for (int i = 0; i < 50 && prefetched("wasted") == wasted; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(wasted + 1, prefetched("wasted"));
+    }
+
+    @Test
+    void invalidCursorIsBadRequest() {
+        webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and Hate")
+                .queryParam("cursor", "not a cursor")
+                .build())
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    /**
+     * Follows next cursors until the last page.
+     */
+    private List<JsonNode> pages(String name) {
+        var pages = new ArrayList<JsonNode>();
+        String cursor = null;
+        do {
+            var page = page(name, cursor);
+            pages.add(page);
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null && pages.size() < 10);
+        assertNull(cursor);
+        return pages;
+    }
+
+    private JsonNode page(String name, String cursor) {
+        return webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .queryParam("pageSize", 4)
+                .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(JsonNode.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    private double prefetched(String result) {
+        return meterRegistry.get("search.pagination.prefetch").tag("result", result).counter().count();
+    }
+
+    private static Set<String> titles(List<JsonNode> pages) {
+        var titles = new ArrayList<String>();
+        pages.forEach(page -> page.get("items").forEach(item -> titles.add(item.get("title").asText())));
+        assertEquals(titles.size(), Set.copyOf(titles).size(), "duplicate items " + titles);
+        return Set.copyOf(titles);
+    }
+
+    private static Set<String> allTitles() {
+        return IntStream.range(0, 10)
+            .mapToObj(i -> i < 7 ? "Album " + i : "Book " + (i - 7))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the first {@code limit} albums. There is no offset in iTunes search.
+     */
+    static class ItunesCatalog extends Dispatcher {
+        private final int size;
+
+        ItunesCatalog(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            var url = Objects.requireNonNull(request.getRequestUrl());
+            int limit = Integer.parseInt(Objects.requireNonNull(url.queryParameter("limit")));
+            var results = IntStream.range(0, Math.min(limit, size))
+                .mapToObj(i -> "{\"collectionName\":\"Album " + i + "\",\"artistName\":\"Artist\"}")
+                .collect(Collectors.joining(","));
+            return new MockResponse()
+                .setBody("{\"resultCount\":" + Math.min(limit, size) + ",\"results\":[" + results + "]}")
+                .addHeader("Content-Type", "text/javascript;charset=UTF-8");
+        }
+    }
+
+    /**
+     * Returns {@code maxResults} books from {@code startIndex}. The first request of a "slow" query is answered in 4 seconds.
+     */
+    static class GoogleCatalog extends Dispatcher {
+        private final int size;
+        private final Set<String> delayed = ConcurrentHashMap.newKeySet();
+
+        GoogleCatalog(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            var url = Objects.requireNonNull(request.getRequestUrl());
+            int startIndex = Integer.parseInt(Objects.requireNonNull(url.queryParameter("startIndex")));
+            int maxResults = Integer.parseInt(Objects.requireNonNull(url.queryParameter("maxResults")));
+            var items = IntStream.range(startIndex, Math.min(startIndex + maxResults, size))
+                .mapToObj(i -> "{\"volumeInfo\":{\"title\":\"Book " + i + "\",\"authors\":[\"Author\"]}}")
+                .collect(Collectors.joining(","));
+            var response = new MockResponse()
+                .setBody("{\"items\":[" + items + "]}")
+                .addHeader("Content-Type", "application/json");
+            var query = Objects.requireNonNull(url.queryParameter("q"));
+            if (query.contains("Slow") && delayed.add(query)) {
+                response.setBodyDelay(4, TimeUnit.SECONDS);
+            }
+            return response;
+        }
+    }
+}
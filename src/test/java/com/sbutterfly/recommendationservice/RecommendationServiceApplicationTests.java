@@ -74,6 +74,42 @@ class RecommendationServiceApplicationTests {
         body.json(readFromResources("/love_and_hate_result.json"), true);
     }
 
+    @Test
+    void unchangedResponseIsNotModified() {
+        // assume
+        for (int i = 0; i < 2; i++) {
+            itunesServer.enqueue(new MockResponse()
+                .setBody(readFromResources("/love_and_hate_itunes_response.json"))
+                .addHeader("Content-Type", "text/javascript;charset=UTF-8")
+            );
+            googleServer.enqueue(new MockResponse()
+                .setBody(readFromResources("/love_and_hate_google_response.json"))
+                .addHeader("Content-Type", "application/json")
+            );
+        }
+        var eTag = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and Hate")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .returnResult()
+            .getResponseHeaders()
+            .getETag();
+
+        // act
+        var response = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and Hate")
+                .build())
+            .ifNoneMatch(eTag)
+            .exchange();
+
+        // assert
+        response.expectStatus().isNotModified()
+            .expectHeader().valueEquals("ETag", eTag)
+            .expectBody().isEmpty();
+    }
+
     @Test
     void itunesIsNotResponding() {
         // assume
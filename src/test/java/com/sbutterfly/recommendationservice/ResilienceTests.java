@@ -0,0 +1,124 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.jayway.jsonpath.JsonPath;
+import com.sbutterfly.recommendationservice.health.ItunesHealthIndicator;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.googleResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "search.circuitbreaker.enabled=true",
+    "search.circuitbreaker.window-size=4",
+    "search.circuitbreaker.minimum-calls=4",
+    "search.circuitbreaker.open-duration=1m",
+    "search.hedging.googleBooks.enabled=true",
+    "search.hedging.googleBooks.initial-delay=200ms",
+})
+class ResilienceTests {
+    @Autowired
+    WebTestClient webClient;
+
+    @Autowired
+    ItunesHealthIndicator itunesHealthIndicator;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void circuitBreakerOpensOnFailingUpstream() {
+        // assume
+        for (int i = 0; i < 4; i++) {
+            itunesServer.enqueue(new MockResponse().setResponseCode(500));
+            googleServer.enqueue(googleResponse());
+        }
+        googleServer.enqueue(googleResponse());
+
+        // act
+        for (int i = 0; i < 4; i++) {
+            search("Love and Hate " + i);
+        }
+        int itunesRequests = itunesServer.getRequestCount();
+        long start = System.nanoTime();
+        var errorMessage = search("Love and Hate");
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        assertEquals("iTunes search is unavailable", errorMessage);
+        assertEquals(itunesRequests, itunesServer.getRequestCount());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "short-circuited search took " + elapsed);
+        var health = itunesHealthIndicator.health().block(Duration.ofSeconds(5));
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals("OPEN", health.getDetails().get("circuitBreaker").toString());
+    }
+
+    @Test
+    void slowCallIsHedged() {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse().setBodyDelay(4, TimeUnit.SECONDS));
+        googleServer.enqueue(googleResponse());
+
+        // act
+        long start = System.nanoTime();
+        var body = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Hedged love and hate")
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        body.jsonPath("$.items[?(@.type == 'BOOK')]").value(books -> assertEquals(5, ((List<?>) books).size()));
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "hedged search took " + elapsed);
+    }
+
+    private String search(String name) {
+        var response = webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", name)
+                .build())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+        return JsonPath.read(response, "$.errorMessage");
+    }
+}
@@ -0,0 +1,103 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.googleResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SearchStreamTests {
+    @Autowired
+    WebTestClient webClient;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void firstItemsFollowTheFasterProvider() {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse().setBodyDelay(3, TimeUnit.SECONDS));
+
+        // act
+        long start = System.nanoTime();
+        var first = stream("Love and Hate", MediaType.APPLICATION_NDJSON)
+            .blockFirst(Duration.ofSeconds(10));
+        var latency = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        assertEquals("ITEMS", first.get("type").asText());
+        assertEquals("itunes", first.get("provider").asText());
+        assertEquals(5, first.get("items").size());
+        assertTrue(latency.compareTo(Duration.ofSeconds(2)) < 0, "first items took " + latency);
+    }
+
+    @Test
+    void streamEndsWithSummary() {
+        // assume
+        itunesServer.enqueue(itunesResponse().setBodyDelay(2, TimeUnit.SECONDS));
+        googleServer.enqueue(new MockResponse()
+            .setResponseCode(500)
+        );
+
+        // act
+        var events = stream("Love and Hate", MediaType.TEXT_EVENT_STREAM)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        // assert
+        assertEquals(2, events.size());
+        assertEquals("itunes", events.get(0).get("provider").asText());
+        assertEquals("SUMMARY", events.get(1).get("type").asText());
+        assertEquals("Google books search is unavailable", events.get(1).get("errorMessage").asText());
+    }
+
+    private Flux<JsonNode> stream(String name, MediaType mediaType) {
+        return webClient.get().uri(uriBuilder -> uriBuilder.path("/search/stream")
+                .queryParam("name", name)
+                .build())
+            .accept(mediaType)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(mediaType)
+            .returnResult(JsonNode.class)
+            .getResponseBody();
+    }
+}
@@ -0,0 +1,80 @@
+package com.sbutterfly.recommendationservice;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.sbutterfly.recommendationservice.tracing.TraceContext;
+import com.sbutterfly.recommendationservice.tracing.TraceWebFilter;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.sbutterfly.recommendationservice.MockUpstreams.googleResponse;
+import static com.sbutterfly.recommendationservice.MockUpstreams.itunesResponse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@AutoConfigureWebTestClient(timeout = "PT5M")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class TracingTests {
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    @Autowired
+    WebTestClient webClient;
+
+    public static MockWebServer itunesServer;
+    public static MockWebServer googleServer;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        itunesServer = MockUpstreams.start();
+        googleServer = MockUpstreams.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        itunesServer.shutdown();
+        googleServer.shutdown();
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry r) {
+        MockUpstreams.register(r, itunesServer, googleServer);
+    }
+
+    @Test
+    void traceIsPropagatedToUpstreams() throws InterruptedException {
+        // assume
+        itunesServer.enqueue(itunesResponse());
+        googleServer.enqueue(googleResponse());
+
+        // act
+        webClient.get().uri(uriBuilder -> uriBuilder.path("/search")
+                .queryParam("name", "Love and Hate")
+                .build())
+            .header(TraceContext.HEADER, "00-" + TRACE_ID + "-" + PARENT_ID + "-01")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(TraceWebFilter.TRACE_ID_HEADER, TRACE_ID);
+        var itunesRequest = itunesServer.takeRequest(5, TimeUnit.SECONDS);
+        var googleRequest = googleServer.takeRequest(5, TimeUnit.SECONDS);
+
+        // assert
+        assertNotNull(itunesRequest);
+        assertNotNull(googleRequest);
+        var itunesTrace = itunesRequest.getHeader(TraceContext.HEADER);
+        var googleTrace = googleRequest.getHeader(TraceContext.HEADER);
+        assertNotNull(itunesTrace);
+        assertNotNull(googleTrace);
+        assertTrue(itunesTrace.matches("00-" + TRACE_ID + "-(?!" + PARENT_ID + ")[0-9a-f]{16}-01"), itunesTrace);
+        assertTrue(googleTrace.matches("00-" + TRACE_ID + "-(?!" + PARENT_ID + ")[0-9a-f]{16}-01"), googleTrace);
+    }
+}
@@ -0,0 +1,117 @@
+package com.sbutterfly.recommendationservice.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchCacheTests {
+    private static final List<Item> FIRST = List.of(new Item("Love and Hate", "Michael Kiwanuka", Item.Type.ALBUM));
+    private static final List<Item> SECOND = List.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void staleEntryIsReturnedAndRefreshedInBackground() {
+        // assume
+        var cache = cache(10, 1_000_000, Duration.ofMinutes(1));
+        get(cache, Mono.just(FIRST));
+        advance(Duration.ofSeconds(90));
+
+        // act
+        var stale = get(cache, Mono.just(SECOND));
+        var refreshed = get(cache, Mono.just(List.of()));
+
+        // assert
+        assertEquals(FIRST, stale);
+        assertEquals(SECOND, refreshed);
+        assertEquals(2, loads.get());
+        assertEquals(1, count("stale"));
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void emptyResultExpiresAfterNegativeTtl() {
+        // assume
+        var cache = cache(10, 1_000_000, Duration.ZERO);
+        get(cache, Mono.just(List.of()));
+
+        // act
+        advance(Duration.ofSeconds(20));
+        var cached = get(cache, Mono.just(FIRST));
+        advance(Duration.ofSeconds(20));
+        var reloaded = get(cache, Mono.just(FIRST));
+
+        // assert
+        assertEquals(List.of(), cached);
+        assertEquals(FIRST, reloaded);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void retainedEntryIsReturnedOnUpstreamError() {
+        // assume
+        var cache = cache(10, 1_000_000, Duration.ZERO);
+        get(cache, Mono.just(FIRST));
+        advance(Duration.ofMinutes(30));
+
+        // act
+        var fallback = get(cache, Mono.error(new IllegalStateException("503")));
+
+        // assert
+        assertEquals(FIRST, fallback);
+        assertEquals(1, count("fallback"));
+    }
+
+    @Test
+    void entriesAreEvictedByWeight() throws InterruptedException {
+        // assume
+        var cache = cache(10, 10_000, Duration.ZERO);
+
+        // act
+        for (int i = 0; i < 20; i++) {
+            cache.get("itunes", "query " + i, 5, () -> Mono.just(FIRST)).block();
+        }
+
+        // assert
+        for (int i = 0; i < 100 && evictions() < 10; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, meterRegistry.get("cache.size").gauge().value());
+        assertEquals(10, evictions());
+    }
+
+    private SearchCache cache(long maxEntries, long maxWeight, Duration staleWhileRevalidate) {
+        return new SearchCache(new MockEnvironment(), true, maxEntries, maxWeight, Duration.ofMinutes(1), Duration.ofSeconds(30),
+            staleWhileRevalidate, Duration.ofHours(1), meterRegistry, ticker::get);
+    }
+
+    private List<Item> get(SearchCache cache, Mono<List<Item>> result) {
+        return cache.get("itunes", "love and hate", 5, () -> {
+            loads.incrementAndGet();
+            return result;
+        }).block();
+    }
+
+    private void advance(Duration duration) {
+        ticker.addAndGet(duration.toNanos());
+    }
+
+    private double evictions() {
+        return meterRegistry.get("cache.evictions").functionCounter().count();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("search.cache.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,108 @@
+package com.sbutterfly.recommendationservice.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100, 1000})
+    void upstreamCallCountStaysFlatAsConcurrencyGrows(int concurrency) {
+        // assume
+        var key = SearchKey.of("itunes", "Love and Hate", 5);
+        var item = new Item("Love and Hate", "Michael Kiwanuka", Item.Type.ALBUM);
+
+        // act
+        var results = Flux.range(0, concurrency)
+            .flatMap(i -> singleFlight.execute(key, () -> slowUpstream(List.of(item)))
+                .subscribeOn(Schedulers.parallel()), concurrency)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        // assert
+        assertEquals(concurrency, results.size());
+        results.forEach(items -> assertEquals(List.of(item), items));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(concurrency - 1, collapsed("itunes"));
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void differentQueriesAreNotCollapsed() {
+        // act
+        Flux.just("Love and Hate", "Help!", "Queen")
+            .flatMap(name -> singleFlight.execute(SearchKey.of("itunes", name, 5), () -> slowUpstream(List.of())))
+            .blockLast(Duration.ofSeconds(10));
+
+        // assert
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0, collapsed("itunes"));
+    }
+
+    @Test
+    void queriesDifferingInCaseAndWhitespaceAreCollapsed() {
+        // act
+        Flux.just("Love and Hate", "love  AND hate", " LOVE and hate ")
+            .flatMap(name -> singleFlight.execute(SearchKey.of("itunes", name, 5), () -> slowUpstream(List.of())))
+            .blockLast(Duration.ofSeconds(10));
+
+        // assert
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(2, collapsed("itunes"));
+    }
+
+    @Test
+    void errorIsSharedAndNextCallIsExecutedAgain() {
+        // assume
+        var key = SearchKey.of("googleBooks", "To kill a mockingbird", 5);
+        Mono<List<Item>> failingUpstream = Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(100)).then(Mono.<List<Item>>error(new IllegalStateException("upstream is down")));
+        });
+
+        // act
+        var errors = Flux.range(0, 10)
+            .flatMap(i -> singleFlight.execute(key, () -> failingUpstream)
+                .map(items -> "success")
+                .onErrorResume(e -> Mono.just(e.getMessage())))
+            .collectList()
+            .block(Duration.ofSeconds(10));
+        singleFlight.execute(key, () -> failingUpstream)
+            .onErrorResume(e -> Mono.empty())
+            .block(Duration.ofSeconds(10));
+
+        // assert
+        errors.forEach(message -> assertEquals("upstream is down", message));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private Mono<List<Item>> slowUpstream(List<Item> items) {
+        return Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).thenReturn(items);
+        });
+    }
+
+    private long collapsed(String provider) {
+        var counter = meterRegistry.find("search.upstream.calls")
+            .tag("provider", provider)
+            .tag("result", "collapsed")
+            .counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+}
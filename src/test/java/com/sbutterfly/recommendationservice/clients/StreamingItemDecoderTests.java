@@ -0,0 +1,108 @@
+package com.sbutterfly.recommendationservice.clients;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.codec.DecodingException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingItemDecoderTests {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1 << 20})
+    void decodesItunesResponseInChunks(int chunkSize) {
+        // act
+        var items = decode(new ItunesResponseDecoder(10), "/love_and_hate_itunes_response.json", chunkSize);
+
+        // assert
+        assertEquals(5, items.size());
+        assertEquals("Wasted In America", items.get(0).getTitle());
+        assertEquals("Lov.e & Hate", items.get(0).getAuthors());
+        items.forEach(item -> assertEquals(Item.Type.ALBUM, item.getType()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1 << 20})
+    void decodesGoogleBooksResponseInChunks(int chunkSize) {
+        // act
+        var items = decode(new GoogleBooksResponseDecoder(10), "/love_and_hate_google_response.json", chunkSize);
+
+        // assert
+        assertEquals(5, items.size());
+        items.forEach(item -> {
+            assertEquals(Item.Type.BOOK, item.getType());
+            assertTrue(item.getTitle() != null && !item.getTitle().isEmpty());
+        });
+    }
+
+    @Test
+    void joinsAuthorsAndSkipsNestedFields() {
+        // assume
+        var json = "{\"items\": [{\"volumeInfo\": {\"title\": \"Good Omens\", \"authors\": [\"Terry Pratchett\", \"Neil Gaiman\"],"
+            + " \"industryIdentifiers\": [{\"type\": \"ISBN_10\", \"title\": \"not a title\"}]}},"
+            + " {\"id\": \"no volume info\"}, {\"volumeInfo\": {\"title\": \"Anonymous\"}}]}";
+
+        // act
+        var items = decode(new GoogleBooksResponseDecoder(10), json.getBytes(StandardCharsets.UTF_8), 3);
+
+        // assert
+        assertEquals(2, items.size());
+        assertEquals("Good Omens", items.get(0).getTitle());
+        assertEquals("Terry Pratchett, Neil Gaiman", items.get(0).getAuthors());
+        assertEquals("Anonymous", items.get(1).getTitle());
+        assertEquals("", items.get(1).getAuthors());
+    }
+
+    @Test
+    void stopsAtLimit() {
+        // assume
+        var decoder = new ItunesResponseDecoder(2);
+
+        // act
+        var items = decode(decoder, "/love_and_hate_itunes_response.json", 16);
+
+        // assert
+        assertEquals(2, items.size());
+        assertTrue(decoder.isDone());
+    }
+
+    @Test
+    void failsOnIncompleteResponse() {
+        // assume
+        var decoder = new ItunesResponseDecoder(10);
+        var json = "{\"resultCount\": 1, \"results\": [{\"collectionName\": \"Love & Hate\"".getBytes(StandardCharsets.UTF_8);
+
+        // act
+        decoder.decode(json, 0, json.length);
+
+        // assert
+        assertThrows(DecodingException.class, decoder::complete);
+    }
+
+    private List<Item> decode(StreamingItemDecoder decoder, String resourcePath, int chunkSize) {
+        try (var stream = getClass().getResourceAsStream(resourcePath)) {
+            return decode(decoder, Objects.requireNonNull(stream).readAllBytes(), chunkSize);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Item> decode(StreamingItemDecoder decoder, byte[] json, int chunkSize) {
+        var items = new ArrayList<Item>();
+        for (int offset = 0; offset < json.length; offset += chunkSize) {
+            items.addAll(decoder.decode(json, offset, Math.min(chunkSize, json.length - offset)));
+        }
+        decoder.complete();
+        return items;
+    }
+}
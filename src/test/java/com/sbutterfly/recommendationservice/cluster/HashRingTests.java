@@ -0,0 +1,67 @@
+package com.sbutterfly.recommendationservice.cluster;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTests {
+    private static final List<String> PEERS = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+
+    @Test
+    void ownersDontDependOnOrderOfPeers() {
+        // assume
+        var ring = new HashRing(PEERS, 100);
+        var reversed = new HashRing(List.of(PEERS.get(2), PEERS.get(1), PEERS.get(0)), 100);
+
+        // act & assert
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.owner("query " + i), reversed.owner("query " + i));
+        }
+    }
+
+    @Test
+    void keysAreSpreadOverPeers() {
+        // assume
+        var ring = new HashRing(PEERS, 100);
+        var owned = new HashMap<String, Integer>();
+
+        // act
+        for (int i = 0; i < 30000; i++) {
+            owned.merge(ring.owner("query " + i), 1, Integer::sum);
+        }
+
+        // assert
+        assertEquals(PEERS.size(), owned.size());
+        owned.values().forEach(count -> assertTrue(count > 7000 && count < 13000, "Peer owns " + count + " keys"));
+    }
+
+    @Test
+    void removingPeerMovesOnlyItsKeys() {
+        // assume
+        var ring = new HashRing(PEERS, 100);
+        var shrunk = new HashRing(PEERS.subList(0, 2), 100);
+
+        // act & assert
+        for (int i = 0; i < 1000; i++) {
+            var owner = ring.owner("query " + i);
+            if (!owner.equals(PEERS.get(2))) {
+                assertEquals(owner, shrunk.owner("query " + i));
+            }
+        }
+    }
+
+    @Test
+    void emptyRingHasNoOwners() {
+        // assume
+        var ring = new HashRing(List.of(), 100);
+
+        // act & assert
+        assertTrue(ring.isEmpty());
+        assertNull(ring.owner("query"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.sbutterfly.recommendationservice.concurrency;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimiterTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void requestsOverLimitAreRejected() {
+        // assume
+        var limiter = new GradientLimiter(4, 1, 100, 1.5, 0.2, 100, meterRegistry);
+
+        // act
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, limiter.tryAcquire(1));
+        }
+
+        // assert
+        assertEquals(0, limiter.tryAcquire(1));
+        assertEquals(4, meterRegistry.get("search.concurrency.in-flight").gauge().value());
+        limiter.onIgnored();
+        assertEquals(4, limiter.tryAcquire(1));
+    }
+
+    @Test
+    void shareOfLimitIsRespected() {
+        // assume
+        var limiter = new GradientLimiter(10, 1, 100, 1.5, 0.2, 100, meterRegistry);
+
+        // act
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(0.5);
+        }
+
+        // assert
+        assertEquals(0, limiter.tryAcquire(0.5));
+        assertEquals(6, limiter.tryAcquire(1));
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        // assume
+        var limiter = new GradientLimiter(10, 1, 100, 1.5, 0.2, 100, meterRegistry);
+
+        // act
+        saturate(limiter, Duration.ofMillis(100), 100);
+
+        // assert
+        assertTrue(limiter.limit() > 50, "Limit " + limiter.limit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyGrows() {
+        // assume
+        var limiter = new GradientLimiter(10, 1, 100, 1.5, 0.2, 100, meterRegistry);
+        saturate(limiter, Duration.ofMillis(100), 100);
+        int grown = limiter.limit();
+
+        // act
+        saturate(limiter, Duration.ofMillis(1000), 1);
+
+        // assert
+        assertTrue(limiter.limit() < grown / 2, "Limit " + limiter.limit() + " after " + grown);
+    }
+
+    @Test
+    void idleLimitDoesntGrow() {
+        // assume
+        var limiter = new GradientLimiter(10, 1, 100, 1.5, 0.2, 100, meterRegistry);
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(Duration.ofMillis(100).toNanos(), limiter.tryAcquire(1));
+        }
+
+        // assert
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void failuresShrinkLimitToMin() {
+        // assume
+        var limiter = new GradientLimiter(50, 5, 100, 1.5, 0.2, 100, meterRegistry);
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(1);
+            limiter.onDropped();
+        }
+
+        // assert
+        assertEquals(5, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    /**
+     * Runs rounds of as many concurrent requests as the limit allows, all of them with the same latency.
+     */
+    private static void saturate(GradientLimiter limiter, Duration rtt, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int n = limiter.limit();
+            var inFlight = new int[n];
+            for (int i = 0; i < n; i++) {
+                inFlight[i] = limiter.tryAcquire(1);
+            }
+            for (int i = 0; i < n; i++) {
+                limiter.onSample(rtt.toNanos(), inFlight[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.sbutterfly.recommendationservice.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UpstreamConnectorsTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MockEnvironment environment = new MockEnvironment()
+        .withProperty("search.http.compression", "true")
+        .withProperty("search.http.googleBooks.compression", "false")
+        .withProperty("search.http.itunes.max-connections", "1");
+    private final UpstreamConnectors connectors = new UpstreamConnectors(environment, new SearchMetrics(meterRegistry));
+    private final InFlightDispatcher dispatcher = new InFlightDispatcher();
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectors.destroy();
+        server.shutdown();
+    }
+
+    @Test
+    void providerPropertiesOverrideDefaults() throws InterruptedException {
+        // act
+        get("itunes");
+        get("googleBooks");
+
+        // assert
+        var itunes = server.takeRequest(1, TimeUnit.SECONDS);
+        var googleBooks = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals("gzip", itunes.getHeader("Accept-Encoding"));
+        assertNull(googleBooks.getHeader("Accept-Encoding"));
+        assertEquals("GET / HTTP/1.1", itunes.getRequestLine());
+    }
+
+    @Test
+    void connectionsAreLimitedPerProvider() {
+        // act
+        Flux.range(0, 3)
+            .flatMap(i -> client("itunes").get().retrieve().toBodilessEntity())
+            .blockLast(Duration.ofSeconds(5));
+
+        // assert
+        assertEquals(3, server.getRequestCount());
+        assertEquals(1, dispatcher.maxInFlight.get());
+    }
+
+    @Test
+    void connectTimeIsRecorded() {
+        // act
+        get("itunes");
+
+        // assert
+        assertEquals(1, meterRegistry.get("search.stage").tag("stage", "connect").tag("provider", "itunes").timer().count());
+    }
+
+    private void get(String provider) {
+        client(provider).get().retrieve().toBodilessEntity().block(Duration.ofSeconds(5));
+    }
+
+    private WebClient client(String provider) {
+        return WebClient.builder()
+            .baseUrl(server.url("/").toString())
+            .clientConnector(connectors.forProvider(provider))
+            .build();
+    }
+
+    /**
+     * Answers after a short delay and tracks the number of concurrent requests.
+     */
+    private static class InFlightDispatcher extends Dispatcher {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+                return new MockResponse().setBody("{}");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sbutterfly.recommendationservice.dedup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DeduplicatorTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Deduplicator deduplicator = new Deduplicator(new MockEnvironment(), meterRegistry);
+    private final Deduplicator overfetching = new Deduplicator(
+        new MockEnvironment().withProperty("search.dedup.overfetch", "2"), meterRegistry);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "Love & Hate|Love & Hate (Deluxe Edition)",
+        "Love & Hate|LOVE AND HATE [2016 Remaster]",
+        "Breathless|Breathless - Single",
+        "Café Tacvba|Cafe Tacvba",
+        "Les Misérables|Les Miserables: Unabridged Edition",
+        "Love, Hate & Clickbait|love hate and clickbait",
+        "Rock&Roll|rock and roll",
+    })
+    void editionsHaveEqualKeys(String title, String edition) {
+        assertEquals(
+            ItemKey.of(new Item(title, "Michael Kiwanuka", Item.Type.ALBUM)),
+            ItemKey.of(new Item(edition, "Michael Kiwanuka", Item.Type.ALBUM))
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "Love & Hate|Love & Hate Songs",
+        "Breathless|Breathless (feat. Marlo Eugene)",
+        "Harry Potter|Harry Potter and the Chamber of Secrets",
+    })
+    void differentWorksHaveDifferentKeys(String title, String other) {
+        assertNotEquals(
+            ItemKey.of(new Item(title, "Michael Kiwanuka", Item.Type.ALBUM)),
+            ItemKey.of(new Item(other, "Michael Kiwanuka", Item.Type.ALBUM))
+        );
+    }
+
+    @Test
+    void authorsArePartOfKey() {
+        assertNotEquals(
+            ItemKey.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM)),
+            ItemKey.of(new Item("Love & Hate", "Aventura", Item.Type.ALBUM))
+        );
+    }
+
+    @Test
+    void pagesAreFetchedUntilLimitIsFilled() {
+        // assume
+        var offsets = new ArrayList<Integer>();
+        var editions = new String[]{"", " (Remastered)", " [Deluxe Edition]", " - Single"};
+        var upstream = IntStream.range(0, 100)
+            .mapToObj(i -> new Item("Title " + i / 4 + editions[i % 4], "Author", Item.Type.ALBUM))
+            .collect(Collectors.toList());
+
+        // act
+        var items = overfetching.fill("itunes", 5, 200, (offset, pageSize) -> {
+            offsets.add(offset);
+            return Mono.just(upstream.subList(offset, offset + pageSize));
+        }).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(List.of(0, 10), offsets);
+        assertEquals(List.of("Title 0", "Title 1", "Title 2", "Title 3", "Title 4"),
+            items.stream().map(Item::getTitle).collect(Collectors.toList()));
+        assertEquals(5, meterRegistry.get("search.dedup.items").tag("result", "unique").counter().count());
+        assertEquals(12, meterRegistry.get("search.dedup.items").tag("result", "duplicate").counter().count());
+    }
+
+    @Test
+    void filledPageEndsFetching() {
+        // assume
+        var requests = new ArrayList<String>();
+
+        // act
+        var items = deduplicator.fill("googleBooks", 5, 40, (offset, pageSize) -> {
+            requests.add(offset + "+" + pageSize);
+            return Mono.just(IntStream.range(offset, offset + pageSize)
+                .mapToObj(i -> new Item("Title " + i, "Author", Item.Type.BOOK))
+                .collect(Collectors.toList()));
+        }).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(List.of("0+5"), requests);
+        assertEquals(5, items.size());
+    }
+
+    @Test
+    void lastPageEndsFetching() {
+        // assume
+        var offsets = new ArrayList<Integer>();
+
+        // act
+        var items = deduplicator.fill("googleBooks", 5, 40, (offset, pageSize) -> {
+            offsets.add(offset);
+            return Mono.just(List.of(new Item("Title", "Author", Item.Type.BOOK), new Item("Title", "Author", Item.Type.BOOK)));
+        }).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(List.of(0), offsets);
+        assertEquals(1, items.size());
+    }
+
+    @Test
+    void nextOffsetPointsAfterLastExaminedItem() {
+        // assume
+        var editions = new String[]{"", " (Remastered)", " [Deluxe Edition]", " - Single"};
+        var upstream = IntStream.range(0, 24)
+            .mapToObj(i -> new Item("Title " + i / 4 + editions[i % 4], "Author", Item.Type.ALBUM))
+            .collect(Collectors.toList());
+
+        // act
+        var first = overfetching.fillPage("itunes", 0, 5, 200, (offset, pageSize) ->
+            Mono.just(upstream.subList(offset, Math.min(upstream.size(), offset + pageSize)))).block(Duration.ofSeconds(1));
+        var last = overfetching.fillPage("itunes", 20, 5, 200, (offset, pageSize) ->
+            Mono.just(upstream.subList(offset, Math.min(upstream.size(), offset + pageSize)))).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(17, first.getNextOffset());
+        assertEquals(1, last.getItems().size());
+        assertEquals(-1, last.getNextOffset());
+    }
+
+    @Test
+    void duplicatesOfPrecedingProvidersAreRemoved() {
+        // assume
+        var responses = List.of(
+            new SearchResponse(List.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM))),
+            new SearchResponse(List.of(
+                new Item("Love & Hate (Deluxe)", "Michael Kiwanuka", Item.Type.ALBUM),
+                new Item("Love, Hate and Reparation", "Melanie Klein", Item.Type.BOOK)
+            ))
+        );
+
+        // act
+        var distinct = deduplicator.distinct(responses);
+
+        // assert
+        assertEquals(1, distinct.get(0).getItems().size());
+        assertEquals("Love, Hate and Reparation", distinct.get(1).getItems().get(0).getTitle());
+        assertEquals(1, distinct.get(1).getItems().size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.sbutterfly.recommendationservice.health;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sbutterfly.recommendationservice.ratelimit.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TrafficStatsTests {
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void errorRateAndPercentilesOfRecentCalls() {
+        // assume
+        var stats = new TrafficStats(100, Duration.ofMinutes(1), clock::get);
+
+        // act
+        for (int i = 1; i <= 100; i++) {
+            stats.record(Duration.ofMillis(i).toNanos(), i % 4 != 0);
+        }
+        var snapshot = stats.snapshot();
+
+        // assert
+        assertEquals(100, snapshot.getCalls());
+        assertEquals(0.25, snapshot.getErrorRate(), 1e-9);
+        assertEquals(Duration.ofMillis(50), snapshot.getLatencyP50());
+        assertEquals(Duration.ofMillis(99), snapshot.getLatencyP99());
+        assertEquals(Duration.ZERO, snapshot.getSinceLastSuccess());
+    }
+
+    @Test
+    void callsOutsideOfWindowAreIgnored() {
+        // assume
+        var stats = new TrafficStats(100, Duration.ofMinutes(1), clock::get);
+        stats.record(Duration.ofMillis(10).toNanos(), true);
+        clock.addAndGet(Duration.ofSeconds(50).toMillis());
+        stats.record(Duration.ofMillis(10).toNanos(), false);
+
+        // act
+        clock.addAndGet(Duration.ofSeconds(20).toMillis());
+        var snapshot = stats.snapshot();
+
+        // assert
+        assertEquals(1, snapshot.getCalls());
+        assertEquals(1.0, snapshot.getErrorRate(), 1e-9);
+        assertEquals(Duration.ofSeconds(70), snapshot.getSinceLastSuccess());
+    }
+
+    @Test
+    void onlyTheLatestCallsAreKept() {
+        // assume
+        var stats = new TrafficStats(10, Duration.ofMinutes(1), clock::get);
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            stats.record(0, false);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.record(0, true);
+        }
+
+        // assert
+        assertEquals(10, stats.snapshot().getCalls());
+        assertEquals(0.0, stats.snapshot().getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void callsAreRecordedWhenMonoTerminates() {
+        // assume
+        var stats = new TrafficStats(10, Duration.ofMinutes(1), clock::get);
+
+        // act
+        stats.record(Mono.just("ok")).block();
+        stats.record(Mono.error(new IllegalStateException())).onErrorReturn("failed").block();
+        stats.record(Mono.never()).timeout(Duration.ofMillis(10), Mono.just("cancelled")).block();
+
+        // assert
+        var snapshot = stats.snapshot();
+        assertEquals(2, snapshot.getCalls());
+        assertEquals(0.5, snapshot.getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void localRateLimitRejectionsAreNotCounted() {
+        // assume
+        var stats = new TrafficStats(10, Duration.ofMinutes(1), clock::get);
+
+        // act
+        stats.record(Mono.just("ok")).block();
+        for (int i = 0; i < 5; i++) {
+            stats.record(Mono.error(new RateLimitExceededException("itunes"))).onErrorReturn("rejected").block();
+        }
+
+        // assert
+        var snapshot = stats.snapshot();
+        assertEquals(1, snapshot.getCalls());
+        assertEquals(0.0, snapshot.getErrorRate(), 1e-9);
+    }
+
+    @Test
+    void noSuccessfulCalls() {
+        // act
+        var snapshot = new TrafficStats(10, Duration.ofMinutes(1), clock::get).snapshot();
+
+        // assert
+        assertEquals(0, snapshot.getCalls());
+        assertNull(snapshot.getSinceLastSuccess());
+    }
+}
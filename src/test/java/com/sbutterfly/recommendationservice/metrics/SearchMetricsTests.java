@@ -0,0 +1,43 @@
+package com.sbutterfly.recommendationservice.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import com.sbutterfly.recommendationservice.resilience.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchMetricsTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SearchMetrics searchMetrics = new SearchMetrics(meterRegistry);
+
+    @Test
+    void failuresAreClassified() {
+        assertEquals("timeout", SearchMetrics.outcome(new TimeoutException()));
+        assertEquals("4xx", SearchMetrics.outcome(WebClientResponseException.create(404, "Not Found", HttpHeaders.EMPTY, new byte[0], null)));
+        assertEquals("5xx", SearchMetrics.outcome(WebClientResponseException.create(503, "Service Unavailable", HttpHeaders.EMPTY, new byte[0], null)));
+        assertEquals("decode_error", SearchMetrics.outcome(new DecodingException("Upstream response is incomplete")));
+        assertEquals("rejected", SearchMetrics.outcome(new CallNotPermittedException("itunes")));
+        assertEquals("error", SearchMetrics.outcome(new IllegalStateException()));
+    }
+
+    @Test
+    void upstreamCallIsTimedAndCounted() {
+        // act
+        searchMetrics.upstream("itunes", Mono.just(1)).block(Duration.ofSeconds(1));
+        searchMetrics.upstream("itunes", Mono.never().timeout(Duration.ofMillis(10)))
+            .onErrorResume(e -> Mono.empty())
+            .block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(1, meterRegistry.get("search.upstream.outcomes").tag("outcome", "success").counter().count());
+        assertEquals(1, meterRegistry.get("search.upstream.outcomes").tag("outcome", "timeout").counter().count());
+        assertEquals(2, meterRegistry.get("search.stage").tag("stage", "upstream").tag("provider", "itunes").timer().count());
+    }
+}
@@ -0,0 +1,90 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTests {
+
+    @Test
+    void heavyHittersAreFoundAmongManyRareKeys() {
+        // assume
+        var heavyHitters = new HeavyHitters(1024, 4, 10);
+        var random = new Random(42);
+
+        // act
+        for (int i = 0; i < 100_000; i++) {
+            int r = random.nextInt(100);
+            if (r < 10) {
+                heavyHitters.add("help");
+            } else if (r < 15) {
+                heavyHitters.add("love and hate");
+            } else if (r < 18) {
+                heavyHitters.add("to kill a mockingbird");
+            } else {
+                heavyHitters.add("rare " + random.nextInt(1_000_000));
+            }
+        }
+
+        // assert
+        var top = heavyHitters.top(3);
+        assertEquals(List.of("help", "love and hate", "to kill a mockingbird"),
+            top.stream().map(HeavyHitters.Count::getKey).collect(Collectors.toList()));
+        assertTrue(top.get(0).getCount() >= 10_000 * 0.95 && top.get(0).getCount() <= 10_000 * 1.1, top.toString());
+        assertEquals(10, heavyHitters.size());
+    }
+
+    @Test
+    void decayedKeysAreReplaced() {
+        // assume
+        var heavyHitters = new HeavyHitters(1024, 4, 1);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add("yesterday");
+        }
+
+        // act
+        heavyHitters.decay(0.01);
+        for (int i = 0; i < 3; i++) {
+            heavyHitters.add("today");
+        }
+
+        // assert
+        assertEquals("today", heavyHitters.top(1).get(0).getKey());
+    }
+
+    @Test
+    void stripesCountConcurrentAdds() throws InterruptedException {
+        // assume
+        var heavyHitters = new StripedHeavyHitters(1024, 4, 10, 4);
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    heavyHitters.add("help");
+                    heavyHitters.add(i % 2 == 0 ? "love and hate" : "rare " + thread + " " + i);
+                }
+            }));
+        }
+
+        // act
+        threads.forEach(Thread::start);
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // assert
+        var top = heavyHitters.top(2);
+        assertEquals(List.of("help", "love and hate"),
+            top.stream().map(HeavyHitters.Count::getKey).collect(Collectors.toList()));
+        assertTrue(top.get(0).getCount() >= 40_000, top.toString());
+        assertTrue(top.get(1).getCount() >= 20_000, top.toString());
+        assertTrue(heavyHitters.size() <= 12, "tracked " + heavyHitters.size());
+    }
+}
@@ -0,0 +1,115 @@
+package com.sbutterfly.recommendationservice.popular;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.cache.SearchCache;
+import com.sbutterfly.recommendationservice.clients.SearchProvider;
+import com.sbutterfly.recommendationservice.cluster.ClusterPeers;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.ItemPage;
+import com.sbutterfly.recommendationservice.ratelimit.RateLimiters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Warming may use the whole rate limit of 20 searches per second, so 4 queries are warmed
+ * in a round of 200ms, at least 50ms apart.
+ */
+class PopularQueriesTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubProvider provider = new StubProvider();
+    private final PopularQueries popularQueries = new PopularQueries(true, 2048, 4, 1000, 4, 0.9,
+        false, 100, Duration.ofMillis(200), Duration.ofMinutes(1), 1.0,
+        List.of("stub"), List.of(provider),
+        new SearchCache(new MockEnvironment(), true, 10_000, 1 << 20, Duration.ofMinutes(5), Duration.ofSeconds(30),
+            Duration.ofMinutes(1), Duration.ofHours(1), meterRegistry),
+        new ClusterPeers(false, "", List.of(), "", Duration.ofSeconds(10), 100),
+        new RateLimiters(new MockEnvironment(), meterRegistry, true, 20, 20, 100, Duration.ofSeconds(2)),
+        meterRegistry);
+
+    @Test
+    void mostPopularQueriesAreWarmedWithinBudget() {
+        // assume
+        for (int q = 0; q < 10; q++) {
+            for (int i = 0; i <= q; i++) {
+                popularQueries.record("query " + q);
+            }
+        }
+
+        // act
+        popularQueries.warm().block(Duration.ofSeconds(5));
+
+        // assert
+        assertEquals(List.of("query 9", "query 8", "query 7", "query 6"), provider.queries);
+        for (int i = 1; i < provider.times.size(); i++) {
+            var spacing = Duration.ofNanos(provider.times.get(i) - provider.times.get(i - 1));
+            assertTrue(spacing.compareTo(Duration.ofMillis(45)) >= 0, "warming calls are " + spacing + " apart");
+        }
+        assertEquals(4, meterRegistry.get("search.popular.warmed").tag("result", "refreshed").counter().count());
+    }
+
+    @Test
+    void freshQueriesAreNotWarmedAgain() {
+        // assume
+        popularQueries.record("love and hate");
+        popularQueries.warm().block(Duration.ofSeconds(5));
+
+        // act
+        popularQueries.warm().block(Duration.ofSeconds(5));
+
+        // assert
+        assertEquals(List.of("love and hate"), provider.queries);
+    }
+
+    private static class StubProvider implements SearchProvider {
+        private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> times = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String getName() {
+            return "stub";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Stub";
+        }
+
+        @Override
+        public int getLimit() {
+            return 5;
+        }
+
+        @Override
+        public Duration getTimeout() {
+            return Duration.ofSeconds(1);
+        }
+
+        @Override
+        public Mono<List<Item>> search(String query) {
+            return Mono.fromSupplier(() -> {
+                queries.add(query);
+                times.add(System.nanoTime());
+                return List.of(new Item(query, "Author", Item.Type.BOOK));
+            });
+        }
+
+        @Override
+        public Mono<ItemPage> searchPage(String query, int offset, int pageSize) {
+            return Mono.error(new UnsupportedOperationException());
+        }
+
+        @Override
+        public Mono<List<Item>> probe(String query) {
+            return Mono.error(new UnsupportedOperationException());
+        }
+    }
+}
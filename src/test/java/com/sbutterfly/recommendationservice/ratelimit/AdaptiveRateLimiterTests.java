@@ -0,0 +1,71 @@
+package com.sbutterfly.recommendationservice.ratelimit;
+
+import java.net.URI;
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveRateLimiterTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void burstIsServedImmediatelyAndTheRestIsRejected() {
+        // assume
+        var limiter = new AdaptiveRateLimiter("itunes", 1, 5, 0, Duration.ofSeconds(10), meterRegistry);
+
+        // act
+        var results = Flux.range(0, 10)
+            .flatMap(i -> limiter.acquire().thenReturn("acquired").onErrorReturn("rejected"))
+            .collectList()
+            .block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(5, results.stream().filter("acquired"::equals).count());
+        assertEquals(5, meterRegistry.get("search.ratelimit.rejected").counter().count());
+    }
+
+    @Test
+    void requestsWaitInQueue() {
+        // assume
+        var limiter = new AdaptiveRateLimiter("itunes", 20, 1, 10, Duration.ofSeconds(1), meterRegistry);
+
+        // act
+        long start = System.nanoTime();
+        Flux.range(0, 5)
+            .flatMap(i -> limiter.acquire())
+            .blockLast(Duration.ofSeconds(5));
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // assert
+        assertTrue(elapsed.toMillis() >= 150, "5 permits at 20 per second took " + elapsed);
+        assertEquals(0, limiter.queued());
+    }
+
+    @Test
+    void tooManyRequestsReducesRateAndPauses() {
+        // assume
+        var limiter = new AdaptiveRateLimiter("googleBooks", 10, 10, 10, Duration.ofMillis(500), meterRegistry);
+        var request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/books/v1/volumes")).build();
+        var tooManyRequests = ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+            .header("Retry-After", "2")
+            .build();
+
+        // act
+        limiter.filter(request, r -> Mono.just(tooManyRequests)).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals(5, limiter.rate());
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire().block(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import com.sbutterfly.recommendationservice.ratelimit.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("itunes", 4, 4, 0.5,
+        Duration.ofSeconds(3), 0.8, Duration.ofMinutes(1), 1, meterRegistry);
+
+    @ParameterizedTest
+    @ValueSource(ints = {500, 503, 429})
+    void upstreamFailuresOpenBreaker(int status) {
+        // act
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.execute(Mono.error(responseException(status))).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void timeoutsOpenBreaker() {
+        // act
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.execute(Mono.error(new TimeoutException())).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 404})
+    void clientErrorsLeaveBreakerClosed(int status) {
+        // act
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.execute(Mono.error(responseException(status))).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // assert
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void rateLimitRejectionsLeaveBreakerClosed() {
+        // act
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.execute(Mono.error(new RateLimitExceededException("itunes"))).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // assert
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, meterRegistry.find("search.circuitbreaker.calls").tag("outcome", "failure").counters().stream()
+            .mapToDouble(counter -> counter.count())
+            .sum());
+    }
+
+    private static WebClientResponseException responseException(int status) {
+        return WebClientResponseException.create(status, "", HttpHeaders.EMPTY, new byte[0], null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sbutterfly.recommendationservice.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HedgingTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Hedging hedging = new Hedging("googleBooks", 0.95, Duration.ofMillis(50), Duration.ofMillis(100), meterRegistry);
+
+    @Test
+    void fastErrorIsReturnedWithoutHedgedCall() throws InterruptedException {
+        // assume
+        var calls = new AtomicInteger();
+
+        // act
+        var error = assertThrows(IllegalStateException.class, () -> hedging.execute(() -> {
+            calls.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("503"));
+        }).block(Duration.ofSeconds(1)));
+        Thread.sleep(300);
+
+        // assert
+        assertEquals("503", error.getMessage());
+        assertEquals(1, calls.get());
+        assertEquals(0, meterRegistry.get("search.hedging.calls").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    void fastValueCancelsHedgedCall() throws InterruptedException {
+        // assume
+        var calls = new AtomicInteger();
+
+        // act
+        var value = hedging.execute(() -> {
+            calls.incrementAndGet();
+            return Mono.just("value");
+        }).block(Duration.ofSeconds(1));
+        Thread.sleep(300);
+
+        // assert
+        assertEquals("value", value);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void slowCallIsHedged() {
+        // assume
+        var calls = new AtomicInteger();
+
+        // act
+        var value = hedging.execute(() -> calls.incrementAndGet() == 1
+            ? Mono.delay(Duration.ofSeconds(5)).thenReturn("primary")
+            : Mono.just("hedge")
+        ).block(Duration.ofSeconds(1));
+
+        // assert
+        assertEquals("hedge", value);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("search.hedging.calls").tag("result", "won").counter().count());
+    }
+}
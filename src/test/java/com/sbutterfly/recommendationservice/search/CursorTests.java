@@ -0,0 +1,48 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorTests {
+    private static final List<String> PROVIDERS = List.of("itunes", "googleBooks");
+
+    @Test
+    void cursorSurvivesEncoding() {
+        // assume
+        var cursor = Cursor.of(PROVIDERS, new int[]{10, 12});
+
+        // act
+        var parsed = Cursor.parse(cursor.encode());
+
+        // assert
+        assertEquals(cursor, parsed);
+        assertEquals(10, parsed.offset("itunes"));
+        assertEquals(12, parsed.offset("googleBooks"));
+    }
+
+    @Test
+    void exhaustedProvidersAreDropped() {
+        // act
+        var cursor = Cursor.parse(Cursor.of(PROVIDERS, new int[]{-1, 7}).encode());
+
+        // assert
+        assertEquals(-1, cursor.offset("itunes"));
+        assertEquals(7, cursor.offset("googleBooks"));
+        assertFalse(cursor.isEmpty());
+        assertTrue(Cursor.of(PROVIDERS, new int[]{-1, -1}).isEmpty());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        // assert
+        assertThrows(IllegalArgumentException.class, () -> Cursor.parse("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.parse(Cursor.of(List.of("itunes=x"), new int[]{1}).encode()));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.parse("aXR1bmVzPS0x"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbutterfly.recommendationservice.metrics.SearchMetrics;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponsesTests {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger merges = new AtomicInteger();
+    private final List<SearchResponse> results = List.of(
+        new SearchResponse(List.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM))),
+        new SearchResponse(List.of(new Item("Love and Hate", "Jane Doe", Item.Type.BOOK)))
+    );
+
+    @Test
+    void encodedBytesAreReusedWhileResultsAreTheSame() {
+        // assume
+        var encodedResponses = encodedResponses(true);
+        var miss = get(encodedResponses, results);
+
+        // act
+        var hit = get(encodedResponses, results);
+        var nextHit = get(encodedResponses, results);
+
+        // assert
+        assertEquals(1, merges.get());
+        assertFalse(miss.isDirect());
+        assertTrue(hit.isDirect());
+        assertSame(hit, nextHit);
+        assertEquals(miss.getETag(), hit.getETag());
+        assertArrayEquals(bytes(miss), bytes(hit));
+        assertEquals(2, meterRegistry.get("search.encoded.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void changedResultsAreEncodedAgain() {
+        // assume
+        var encodedResponses = encodedResponses(true);
+        var before = get(encodedResponses, results);
+        var changed = List.of(results.get(0),
+            new SearchResponse(List.of(new Item("Love and Hate: A Novel", "Jane Doe", Item.Type.BOOK))));
+
+        // act
+        var after = get(encodedResponses, changed);
+
+        // assert
+        assertEquals(2, merges.get());
+        assertNotEquals(before.getETag(), after.getETag());
+    }
+
+    @Test
+    void responsesAreNotKeptWithoutSearchCache() {
+        // assume
+        var encodedResponses = encodedResponses(false);
+        var first = get(encodedResponses, results);
+
+        // act
+        var second = get(encodedResponses, results);
+
+        // assert
+        assertEquals(2, merges.get());
+        assertFalse(second.isDirect());
+        assertEquals(first.getETag(), second.getETag());
+    }
+
+    @Test
+    void responsesWithErrorsAreNotKept() {
+        // assume
+        var encodedResponses = encodedResponses(true);
+        var failed = List.of(results.get(0), new SearchResponse("Google books search is unavailable"));
+        get(encodedResponses, failed);
+
+        // act
+        get(encodedResponses, failed);
+
+        // assert
+        assertEquals(2, merges.get());
+    }
+
+    private EncodedResponses encodedResponses(boolean cacheEnabled) {
+        return new EncodedResponses(true, cacheEnabled, DataSize.ofMegabytes(1), new ObjectMapper(),
+            new SearchMetrics(meterRegistry), meterRegistry);
+    }
+
+    private EncodedResponse get(EncodedResponses encodedResponses, List<SearchResponse> responses) {
+        return encodedResponses.get("love and hate\nnull", responses, () -> {
+            merges.incrementAndGet();
+            var items = responses.stream().flatMap(response -> response.getItems().stream()).collect(Collectors.toList());
+            return new SearchResponse(items);
+        });
+    }
+
+    private static byte[] bytes(EncodedResponse response) {
+        var buffer = response.toDataBuffer(new DefaultDataBufferFactory());
+        var bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+}
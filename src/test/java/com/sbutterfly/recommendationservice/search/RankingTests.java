@@ -0,0 +1,104 @@
+package com.sbutterfly.recommendationservice.search;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import com.sbutterfly.recommendationservice.pojo.SearchResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankingTests {
+    private final RelevanceRanker relevanceRanker = new RelevanceRanker(1.0, 0.3, 1.0, 0.5, 0.2);
+
+    @Test
+    void topKIsStable() {
+        // act
+        var selected = TopK.select(List.of("b1", "a1", "c1", "a2", "b2", "a3"), Comparator.comparing(s -> s.charAt(0)), 4);
+
+        // assert
+        assertEquals(List.of("a1", "a2", "a3", "b1"), selected);
+    }
+
+    @Test
+    void titleRankerSortsAlphabeticallyKeepingOrderOfProviders() {
+        // assume
+        var responses = List.of(
+            new SearchResponse(List.of(album("Love & Hate", "Michael Kiwanuka"), album("Love & Hate", "Aventura"))),
+            new SearchResponse(List.of(book("A Love Hate Thing", "Whitney D. Grandison")))
+        );
+
+        // act
+        var items = new TitleRanker().rank("love and hate", responses, 10);
+
+        // assert
+        assertEquals(List.of("Whitney D. Grandison", "Michael Kiwanuka", "Aventura"), authors(items));
+    }
+
+    @Test
+    void exactTitleAndTokenOverlapWin() {
+        // assume
+        var responses = List.of(
+            new SearchResponse(List.of(
+                album("Breathless", "Love & Hate"),
+                album("Love & Hate", "Michael Kiwanuka"),
+                album("Hate Songs", "Unknown")
+            )),
+            new SearchResponse(List.of())
+        );
+
+        // act
+        var items = relevanceRanker.rank("Love & Hate", responses, 10);
+
+        // assert
+        assertEquals(List.of("Love & Hate", "Breathless", "Hate Songs"), titles(items));
+    }
+
+    @Test
+    void typesAreInterleaved() {
+        // assume
+        var responses = List.of(
+            new SearchResponse(List.of(album("Queen", "A"), album("Queen", "B"), album("Queen", "C"))),
+            new SearchResponse(List.of(book("Queen", "D"), book("Queen", "E")))
+        );
+
+        // act
+        var items = relevanceRanker.rank("queen", responses, 10);
+
+        // assert
+        assertEquals(List.of("A", "D", "B", "E", "C"), authors(items));
+    }
+
+    @Test
+    void limitIsApplied() {
+        // assume
+        var responses = List.of(
+            new SearchResponse(List.of(album("Queen", "A"), album("Queen", "B"), album("Queen", "C"))),
+            new SearchResponse(List.of(book("Queen", "D"), book("Queen", "E")))
+        );
+
+        // act
+        var items = relevanceRanker.rank("queen", responses, 3);
+
+        // assert
+        assertEquals(List.of("A", "D", "B"), authors(items));
+    }
+
+    private static Item album(String title, String authors) {
+        return new Item(title, authors, Item.Type.ALBUM);
+    }
+
+    private static Item book(String title, String authors) {
+        return new Item(title, authors, Item.Type.BOOK);
+    }
+
+    private static List<String> titles(List<Item> items) {
+        return items.stream().map(Item::getTitle).collect(Collectors.toList());
+    }
+
+    private static List<String> authors(List<Item> items) {
+        return items.stream().map(Item::getAuthors).collect(Collectors.toList());
+    }
+}
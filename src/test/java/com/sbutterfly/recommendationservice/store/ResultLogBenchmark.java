@@ -0,0 +1,71 @@
+package com.sbutterfly.recommendationservice.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Measures startup time and lookup latency of a log with a million entries.
+ * It's excluded from the regular test run, use {@code ./gradlew benchmark} to run it.
+ */
+@Tag("benchmark")
+class ResultLogBenchmark {
+    private static final int ENTRIES = 1_000_000;
+    private static final int LOOKUPS = 1_000_000;
+    private static final int CAPACITY = Integer.MAX_VALUE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void millionEntries() throws IOException {
+        var path = directory.resolve("results.log");
+        var items = List.of(
+            new Item("Love and Hate", "Michael Kiwanuka", Item.Type.ALBUM),
+            new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM),
+            new Item("Love and Hate (Deluxe)", "Michael Kiwanuka", Item.Type.ALBUM),
+            new Item("Love and Hate", "Ghost Town", Item.Type.ALBUM),
+            new Item("Love and Hate - Single", "Andrea Berg", Item.Type.ALBUM)
+        );
+
+        long start = System.nanoTime();
+        try (var log = new ResultLog(path, CAPACITY, Long.MAX_VALUE)) {
+            for (int i = 0; i < ENTRIES; i++) {
+                log.append(SearchKey.of("itunes", "query " + i, 5), items, i);
+            }
+        }
+        System.out.printf("Appended %d entries in %d ms%n", ENTRIES, (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        try (var log = new ResultLog(path, CAPACITY, Long.MAX_VALUE)) {
+            System.out.printf("Opened log with %d entries (%d MB) in %d ms%n",
+                log.size(), log.usedBytes() >> 20, (System.nanoTime() - start) / 1_000_000);
+            assertEquals(ENTRIES, log.size());
+
+            var random = ThreadLocalRandom.current();
+            var keys = new SearchKey[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                keys[i] = SearchKey.of("itunes", "query " + random.nextInt(ENTRIES), 5);
+            }
+            // warm up
+            for (int i = 0; i < LOOKUPS; i++) {
+                assertNotNull(log.get(keys[i]));
+            }
+            start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                assertNotNull(log.get(keys[i]));
+            }
+            System.out.printf("Average lookup latency %d ns%n", (System.nanoTime() - start) / LOOKUPS);
+        }
+    }
+}
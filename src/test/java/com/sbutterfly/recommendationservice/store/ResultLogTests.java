@@ -0,0 +1,93 @@
+package com.sbutterfly.recommendationservice.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.sbutterfly.recommendationservice.cache.SearchKey;
+import com.sbutterfly.recommendationservice.pojo.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultLogTests {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsLatestRecord() throws IOException {
+        try (var log = new ResultLog(directory.resolve("results.log"), 1 << 20, DAY)) {
+            // act
+            log.append(SearchKey.of("itunes", "Queen", 5), List.of(album("Greatest Hits")), 1);
+            log.append(SearchKey.of("itunes", "Queen", 5), List.of(album("Innuendo")), 2);
+
+            // assert
+            var record = log.get(SearchKey.of("itunes", "  QUEEN", 5));
+            assertEquals(2, record.getTimestamp());
+            assertEquals("Innuendo", record.getItems().get(0).getTitle());
+            assertNull(log.get(SearchKey.of("googleBooks", "Queen", 5)));
+        }
+    }
+
+    @Test
+    void survivesReopen() throws IOException {
+        // assume
+        var path = directory.resolve("results.log");
+        try (var log = new ResultLog(path, 1 << 20, DAY)) {
+            log.append(SearchKey.of("googleBooks", "Love and Hate", 5),
+                List.of(new Item("Love and Hate", null, Item.Type.BOOK)), 1);
+            log.append(SearchKey.of("itunes", "Love and Hate", 5), List.of(), 2);
+        }
+
+        // act
+        try (var log = new ResultLog(path, 1 << 20, DAY)) {
+            // assert
+            assertEquals(2, log.size());
+            var book = log.get(SearchKey.of("googleBooks", "Love and Hate", 5)).getItems().get(0);
+            assertEquals("Love and Hate", book.getTitle());
+            assertNull(book.getAuthors());
+            assertEquals(Item.Type.BOOK, book.getType());
+            assertTrue(log.get(SearchKey.of("itunes", "Love and Hate", 5)).getItems().isEmpty());
+        }
+    }
+
+    @Test
+    void compactionKeepsLatestRecordsWithinCapacity() throws IOException {
+        try (var log = new ResultLog(directory.resolve("results.log"), 64 * 1024, DAY)) {
+            // act
+            for (int i = 0; i < 10_000; i++) {
+                log.append(SearchKey.of("itunes", "query " + (i % 500), 5), List.of(album("album " + i)), i);
+            }
+
+            // assert
+            assertTrue(log.usedBytes() <= log.capacity());
+            var latest = log.get(SearchKey.of("itunes", "query 499", 5));
+            assertEquals("album 9999", latest.getItems().get(0).getTitle());
+        }
+    }
+
+    @Test
+    void compactionDropsRecordsOlderThanMaxAge() throws IOException {
+        try (var log = new ResultLog(directory.resolve("results.log"), 1 << 20, DAY)) {
+            // assume
+            log.append(SearchKey.of("itunes", "old", 5), List.of(album("old")), 0);
+            log.append(SearchKey.of("itunes", "new", 5), List.of(album("new")), DAY);
+
+            // act
+            log.compact(DAY + 1);
+
+            // assert
+            assertNull(log.get(SearchKey.of("itunes", "old", 5)));
+            assertEquals("new", log.get(SearchKey.of("itunes", "new", 5)).getItems().get(0).getTitle());
+        }
+    }
+
+    private static Item album(String title) {
+        return new Item(title, "Queen", Item.Type.ALBUM);
+    }
+}
@@ -0,0 +1,108 @@
+package com.sbutterfly.recommendationservice.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultStoreTests {
+    private static final List<Item> ITEMS = List.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM));
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void storedResultIsReturnedAfterRestart() throws Exception {
+        // assume
+        var beforeRegistry = new SimpleMeterRegistry();
+        var before = store(Duration.ofMinutes(5), beforeRegistry);
+        get(before, Mono.just(ITEMS));
+        awaitAppended(beforeRegistry);
+        before.destroy();
+
+        // act
+        var meterRegistry = new SimpleMeterRegistry();
+        var after = store(Duration.ofMinutes(5), meterRegistry);
+        var items = get(after, Mono.just(List.of()));
+        after.destroy();
+
+        // assert
+        assertEquals(ITEMS.get(0).getTitle(), items.get(0).getTitle());
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("search.store.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void expiredResultIsFallbackOfUpstreamErrorAfterRestart() throws Exception {
+        // assume
+        var beforeRegistry = new SimpleMeterRegistry();
+        var before = store(Duration.ZERO, beforeRegistry);
+        get(before, Mono.just(ITEMS));
+        awaitAppended(beforeRegistry);
+        before.destroy();
+
+        // act
+        var meterRegistry = new SimpleMeterRegistry();
+        var after = store(Duration.ZERO, meterRegistry);
+        var items = get(after, Mono.error(new IllegalStateException("503")));
+        after.destroy();
+
+        // assert
+        assertEquals(ITEMS.get(0).getTitle(), items.get(0).getTitle());
+        assertEquals(1, meterRegistry.get("search.store.requests").tag("result", "fallback").counter().count());
+    }
+
+    @Test
+    void storeUsedByAnotherInstanceIsDisabled() throws Exception {
+        // assume
+        var firstRegistry = new SimpleMeterRegistry();
+        var first = store(Duration.ofMinutes(5), firstRegistry);
+        get(first, Mono.just(ITEMS));
+        awaitAppended(firstRegistry);
+
+        // act
+        var meterRegistry = new SimpleMeterRegistry();
+        var second = store(Duration.ofMinutes(5), meterRegistry);
+        var items = get(second, Mono.just(List.of()));
+        first.destroy();
+        second.destroy();
+
+        // assert
+        assertEquals(List.of(), items);
+        assertEquals(2, loads.get());
+        assertEquals(0, meterRegistry.find("search.store.entries").gauges().size());
+    }
+
+    private ResultStore store(Duration ttl, SimpleMeterRegistry meterRegistry) throws IOException {
+        return new ResultStore(true, directory.resolve("results.log").toString(), DataSize.ofMegabytes(1), ttl,
+            Duration.ofDays(7), meterRegistry);
+    }
+
+    private List<Item> get(ResultStore store, Mono<List<Item>> result) {
+        return store.get("itunes", "Love and Hate", 5, () -> {
+            loads.incrementAndGet();
+            return result;
+        }).block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Results are appended in the background.
+     */
+    private static void awaitAppended(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.get("search.store.entries").gauge().value() == 0; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
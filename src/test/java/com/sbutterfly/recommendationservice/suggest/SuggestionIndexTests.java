@@ -0,0 +1,97 @@
+package com.sbutterfly.recommendationservice.suggest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionIndexTests {
+
+    @Test
+    void heaviestEntriesStartingWithPrefixFirst() {
+        // assume
+        var index = new SuggestionIndex(100);
+        index.add("Love & Hate", 3);
+        index.add("Love Songs", 5);
+        index.add("Lover", 1);
+        index.add("Loveless", 4);
+        index.add("Hate", 10);
+
+        // act
+        var suggestions = index.suggest("love", 3);
+
+        // assert
+        assertEquals(List.of("Love Songs", "Loveless", "Love & Hate"), suggestions);
+    }
+
+    @Test
+    void prefixEndingInTheMiddleOfLabel() {
+        // assume
+        var index = new SuggestionIndex(100);
+        index.add("Michael Kiwanuka", 1);
+        index.add("Michael Jackson", 2);
+
+        // act & assert
+        assertEquals(List.of("Michael Jackson", "Michael Kiwanuka"), index.suggest("Mich", 10));
+        assertEquals(List.of("Michael Kiwanuka"), index.suggest("michael  ki", 10));
+        assertEquals(List.of(), index.suggest("Michelle", 10));
+    }
+
+    @Test
+    void weightsAccumulate() {
+        // assume
+        var index = new SuggestionIndex(100);
+        index.add("Queen", 1);
+        index.add("Queens of the Stone Age", 2);
+
+        // act
+        index.add("queen", 2);
+
+        // assert
+        assertEquals(2, index.size());
+        assertEquals(List.of("Queen", "Queens of the Stone Age"), index.suggest("que", 10));
+    }
+
+    @Test
+    void coldEntriesAreEvicted() {
+        // assume
+        var index = new SuggestionIndex(10);
+        for (int i = 0; i < 10; i++) {
+            index.add("title " + i, i + 1);
+        }
+
+        // act
+        index.add("title 10", 100);
+
+        // assert
+        assertEquals(9, index.size());
+        assertEquals(2, index.evicted());
+        var suggestions = index.suggest("title", 20);
+        assertEquals("title 10", suggestions.get(0));
+        assertTrue(!suggestions.contains("title 0") && !suggestions.contains("title 1"), suggestions.toString());
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        // assume
+        var index = new SuggestionIndex(100);
+        index.add("Love & Hate", 3);
+        index.add("Love Songs", 5);
+        index.decay(0.5);
+        var output = new ByteArrayOutputStream();
+
+        // act
+        index.writeTo(output);
+        var restored = new SuggestionIndex(100);
+        restored.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+        // assert
+        assertEquals(2, restored.size());
+        assertEquals(List.of("Love Songs", "Love & Hate"), restored.suggest("lo", 10));
+    }
+}
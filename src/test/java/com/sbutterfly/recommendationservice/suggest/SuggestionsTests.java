@@ -0,0 +1,47 @@
+package com.sbutterfly.recommendationservice.suggest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.sbutterfly.recommendationservice.pojo.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SuggestionsTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotIsWrittenByOneInstanceOnly() throws IOException {
+        // assume
+        var path = directory.resolve("suggestions.snapshot");
+        var first = suggestions(path);
+        var second = suggestions(path);
+        first.record(List.of(new Item("Love & Hate", "Michael Kiwanuka", Item.Type.ALBUM)));
+        second.record(List.of(new Item("Lovely Day", "Bill Withers", Item.Type.ALBUM)));
+
+        // act
+        first.destroy();
+        second.destroy();
+        var restarted = suggestions(path);
+
+        // assert
+        assertEquals(List.of("Love & Hate"), restarted.suggest("love", 10));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of("suggestions.snapshot", "suggestions.snapshot.lock"),
+                files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+        restarted.destroy();
+    }
+
+    private static Suggestions suggestions(Path path) {
+        return new Suggestions(true, 100, 0.95, true, path.toString(), Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+}
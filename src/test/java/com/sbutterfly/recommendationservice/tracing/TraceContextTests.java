@@ -0,0 +1,37 @@
+package com.sbutterfly.recommendationservice.tracing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceContextTests {
+
+    @Test
+    void traceIsContinued() {
+        // act
+        var trace = TraceContext.fromHeader("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        var child = trace.child();
+
+        // assert
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", trace.getTraceId());
+        assertNotEquals("00f067aa0ba902b7", trace.getSpanId());
+        assertEquals(trace.getTraceId(), child.getTraceId());
+        assertNotEquals(trace.getSpanId(), child.getSpanId());
+        assertTrue(child.toHeader().matches("00-4bf92f3577b34da6a3ce929d0e0e4736-[0-9a-f]{16}-01"));
+    }
+
+    @Test
+    void invalidTraceIsReplaced() {
+        // act
+        var missing = TraceContext.fromHeader(null);
+        var zero = TraceContext.fromHeader("00-00000000000000000000000000000000-00f067aa0ba902b7-01");
+        var upperCase = TraceContext.fromHeader("00-4BF92F3577B34DA6A3CE929D0E0E4736-00F067AA0BA902B7-01");
+
+        // assert
+        assertTrue(missing.toHeader().matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"));
+        assertNotEquals("00000000000000000000000000000000", zero.getTraceId());
+        assertNotEquals("4bf92f3577b34da6a3ce929d0e0e4736", upperCase.getTraceId().toLowerCase());
+    }
+}